@@ -156,10 +156,11 @@ public abstract class Boid {
 
     for (Boid boid : boids) {
       if (boid != this) {
-        Vector2D relativePosition 
-                        = this.position.toralSub(boid.position, screenWidth, screenHeight);
-        float squaredDistanceTo = relativePosition.normSquared();
+        float squaredDistanceTo = Vector2D.toralDistSq(position.x, position.y, 
+                                    boid.position.x, boid.position.y, screenWidth, screenHeight);
         if (squaredDistanceTo < separateRadiusSquared) {
+          Vector2D relativePosition 
+                          = this.position.toralSub(boid.position, screenWidth, screenHeight);
           steer = steer.add(relativePosition.scale(1/squaredDistanceTo));
           count++;
         }
@@ -186,9 +187,8 @@ public abstract class Boid {
 
     for (Boid boid : boids) {
       if (boid != this) {
-        Vector2D relativePosition 
-                         = this.position.toralSub(boid.position,screenWidth,screenHeight);
-        float squaredDistanceTo = relativePosition.normSquared();
+        float squaredDistanceTo = Vector2D.toralDistSq(position.x, position.y, 
+                                    boid.position.x, boid.position.y, screenWidth, screenHeight);
         if (squaredDistanceTo < alignRadiusSquared) {
           steer = steer.add(boid.velocity);
           count++;
@@ -228,8 +228,8 @@ public abstract class Boid {
 
     for (Boid boid : boids) {
       if (boid != this) {
-        float squaredDistanceTo 
-            = this.position.toralSub(boid.position,screenWidth,screenHeight).normSquared();
+        float squaredDistanceTo = Vector2D.toralDistSq(position.x, position.y, 
+                                    boid.position.x, boid.position.y, screenWidth, screenHeight);
         if (squaredDistanceTo < cohesionRadiusSquared) {
           sum = sum.add(boid.position);
           count++;
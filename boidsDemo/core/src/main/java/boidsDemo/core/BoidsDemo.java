@@ -10,10 +10,12 @@ import java.lang.StringBuilder;
 import playn.core.Clock;
 import playn.core.Image;
 import playn.core.Platform;
+import playn.core.Surface;
+import playn.core.Tile;
 import playn.core.Pointer;
 import playn.scene.ImageLayer;
 import playn.scene.CanvasLayer;
-import playn.scene.GroupLayer;
+import playn.scene.Layer;
 import playn.scene.SceneGame;
 import playn.core.Font;
 import playn.core.TextBlock;
@@ -22,6 +24,7 @@ import playn.core.TextLayout;
 import playn.core.TextWrap;
 import playn.core.Canvas;
 
+
 /**
  * Flappy Boids!
  *
@@ -44,89 +47,76 @@ public class BoidsDemo extends SceneGame {
    */
   public class Ptero extends Boid {
 
-    // This has to do with cycling through the images[].
+    // This has to do with cycling through the frames[].
     int imageCounter = (int) (random() * 8.9); 
 
-    // These are used for interpolation since the paint signal
-    // may 'click' a various different points between update clicks. 
-    //float preVelX, preVelY;
-    float preX, preY, preTheta;
+    // This ptero's slot in the flock's InterpolationBuffer, which is used for interpolation
+    // since the paint signal may 'click' a various different points between update clicks. 
+    final int slot;
 
     // The constructor.
-    public Ptero(final GroupLayer boidsLayer, float x, float y) {
+    public Ptero(Pteros pteros, float x, float y) {
       super(x, y, width, height);
       numberOfPteros++;
+      slot = pteros.transforms.add(getX(), getY(), getTheta());
+    }
+  } 
 
-      preX = getX(); 
-      preY = getY();
-      preTheta = getTheta();
+  /**
+   * Draws the whole flock of pteros, in one pass over the list of boids.
+   *
+   * Rather than each ptero having its own ImageLayer (and its own update and paint slots),
+   * this one layer draws a tile of the atlas for each boid.  Since all of the tiles are in the
+   * same texture, the whole flock goes into the GPU in a single batch.
+   */
+  public class FlockLayer extends Layer {
 
-      // Give the boid the image of an animated pterodactyl
-      final ImageLayer layer = new ImageLayer(images[imageCounter]);
-      layer.setScale(0.3f);
-      layer.setOrigin(ImageLayer.Origin.CENTER);
-      boidsLayer.addCenterAt(layer, x, y);
+    // how much the ptero images are scaled down
+    static final float SCALE = 0.3f;
 
-      // Define and connect a Slot that reacts to Clock events to an 'update' Signal that emits Clock events.
-      //
-      // Here 'update' is a field of SceneGame (SceneGame extends playn.core.Game). The field
-      // 'update' is of type Signal<Clock>.  It's a signal that gets emitted every time the game
-      // is updated.  Now -- still referring only to 'update' -- Signal<Clock>, hence 'update', is
-      // a Signal that emits events of type Clock.  A Signal is a gadget that we can attach a Slot to.
-      // The Slot then reacts when the Signal emits an event.   
-      // That's what's happening below: we are connecting the Signal called 'update' (which emits 
-      // events of type Clock) to a new Slot that reacts to those events.  The  new Slot reacts as 
-      // defined by the code below.
-      //
-      // Note: the update() method of SceneGame (the discussion above is about the 'update' field) 
-      // is what gets called every time the game simulation is updated.  By default, update() just
-      // emits the Clock to the 'update' field.   
-      // Note also: onEmit is a method of, of course, Slot.
-      //
-      // UPDATE: Changed this to interpolate position (and angle). So, now, keep track of previous
-      // position and angle
-      update.connect(new Slot<Clock>() {
-        @Override public void onEmit (Clock clock) {
-          if (clock.tick % 7 == 0) { 
-            if (imageCounter == 9) 
-              imageCounter = 0;
-            layer.setSource(images[imageCounter++]);
-          }
-          //preVelX = getVelX();
-          //preVelY = getVelY();
-          preX = getX(); 
-          preY = getY();
-          preTheta = getTheta();
-        }
-      });
+    // the flock to draw
+    final Pteros pteros;
 
-      // Define and connect a Slot that reacts to Clock events to a 'paint' Signal that emits Clock events.
-      //
-      // What's happening here is similar to above except that it's paint signal that we are
-      // connecting to the new Slot.
-      paint.connect(new Slot<Clock>() {
-        @Override public void onEmit (Clock clock) {
-          // Here, we interpolate from the last updated position to alpha of the way the
-          // the next (dead-reckoned, based on velocity) position. We don't worry about
-          // interpolating a boid's theta.
-          //
-          // UPDATE: Changed this to interpolate w/r to position, and now interpolate the angle.
-          //layer.setTranslation(getX() + preVelX * clock.alpha, 
-          //                     getY() + preVelY * clock.alpha);
-          //layer.setRotation(getTheta());
-          layer.setTranslation(getX() * clock.alpha + preX * (1f - clock.alpha), 
-                               getY() * clock.alpha + preY * (1f - clock.alpha));
-          layer.setRotation(getTheta() * clock.alpha + preTheta * (1f - clock.alpha));
-        }
-      });
+    // how far (from 0 to 1) the paint is between the last update and the next; set by the paint slot
+    float alpha;
+
+    // the interpolated transforms of the pteros, by slot
+    private float[] xs = new float[0], ys = new float[0], thetas = new float[0];
+
+    public FlockLayer(Pteros pteros) {
+      this.pteros = pteros;
     }
-  } 
+
+    @Override protected void paintImpl (Surface surf) {
+      if (frames == null) return;
+
+      // interpolate all of the pteros from their previous positions (and angles) alpha of the way
+      // to their current ones
+      int size = pteros.transforms.size();
+      if (xs.length < size) {
+        xs = new float[2*size];
+        ys = new float[2*size];
+        thetas = new float[2*size];
+      }
+      pteros.transforms.lerpInto(alpha, xs, ys, thetas);
+
+      // we position each ptero by moving the surface's transform to it, and then putting the
+      // transform back the way it was for the next one
+      for (Ptero ptero : pteros.list) {
+        int slot = ptero.slot;
+        Tile tile = frames[ptero.imageCounter];
+        surf.saveTx();
+        surf.translate(xs[slot], ys[slot]).rotate(thetas[slot]).scale(SCALE, SCALE);
+        surf.draw(tile, -tile.width()/2, -tile.height()/2);
+        surf.restoreTx();
+      }
+    }
+  }
 
   // Cycling through the images makes instances of the below pterodactyl class 
-  // appear to fly.
-  // TODO:  we might need to put these all into a single texture and move through
-  // it to create the animation.  Then, be sure to dispose() of things correctly, which
-  // may help performance on phones. 
+  // appear to fly.  Once they load, the images are packed into a single texture (see
+  // TextureAtlas) and the pteros cycle through its tiles, so all of them can be drawn
+  // without switching textures.
   // NOTE:  We should consider using TriplePlay's Animator for this.
   private final Image [] images = {
     plat.assets().getImage("images/ptero0.png"),
@@ -140,6 +130,10 @@ public class BoidsDemo extends SceneGame {
     plat.assets().getImage("images/ptero8.png")
   };
 
+  // the frames of the animation, in the atlas; null until it is packed (and until then the
+  // FlockLayer draws nothing)
+  private Tile [] frames;
+
   static {
     // you can play with these constants:
     Ptero.separateRadiusSquared = 625.0f;
@@ -157,14 +151,32 @@ public class BoidsDemo extends SceneGame {
   /**
    * An instance of this class creates and updates a collection of pterodactyls.
    */
-  public class Pteros extends Boids {
+  public class Pteros extends Boids<Ptero> {
+
+    // the previous and current positions and angles of the pteros, for interpolating
+    final InterpolationBuffer transforms = new InterpolationBuffer();
 
     public Pteros() {
       super(); 
 
+      // Define and connect a Slot that reacts to Clock events to an 'update' Signal that emits Clock events.
+      //
+      // Here 'update' is a field of SceneGame (SceneGame extends playn.core.Game). The field
+      // 'update' is of type Signal<Clock>.  It's a signal that gets emitted every time the game
+      // is updated.  The Slot then reacts when the Signal emits an event, as defined by the code below.
+      //
+      // This one Slot updates the whole flock: it moves them all, keeps track of their previous
+      // and new positions and angles (for interpolating when painting), and steps their animation.
       update.connect(new Slot<Clock>() {
         @Override public void onEmit (Clock clock) {
           flock();
+          transforms.snapshot();
+          boolean nextFrame = clock.tick % 7 == 0;
+          for (Ptero ptero : list) {
+            transforms.set(ptero.slot, ptero.getX(), ptero.getY(), ptero.getTheta());
+            if (nextFrame && ++ptero.imageCounter == 9) 
+              ptero.imageCounter = 0;
+          }
         }
       });
     }
@@ -190,16 +202,28 @@ public class BoidsDemo extends SceneGame {
 
     rootLayer.add(bgLayer);  // create the root node of the scene graph 
 
-    // create a group layer to hold boids' ImageLayers
-    final GroupLayer pterosLayer = new GroupLayer();
-    rootLayer.add(pterosLayer);
+    // pack the ptero frames into one texture as soon as they have loaded
+    TextureAtlas.pack(plat.graphics(), images).onSuccess(new Slot<Tile[]>() {
+      @Override public void onEmit (Tile[] tiles) {
+        frames = tiles;
+      }
+    });
 
     // create a collection (initially empty) of boids:
     final Pteros pteros = new Pteros();
 
+    // create a layer that draws them all, and let it know where between updates each paint is
+    final FlockLayer flockLayer = new FlockLayer(pteros);
+    rootLayer.add(flockLayer);
+    paint.connect(new Slot<Clock>() {
+      @Override public void onEmit (Clock clock) {
+        flockLayer.alpha = clock.alpha;
+      }
+    });
+
     // add some pterodactyls, randomly:
     for (int i = 0; i < 40; i++)
-      pteros.add(new Ptero(pterosLayer, (float)(width/3+random()*width/3), (float)(height/3+random()*height/3)));
+      pteros.add(new Ptero(pteros, (float)(width/3+random()*width/3), (float)(height/3+random()*height/3)));
 
     // Display the number of Pteros and other info in the corner of the screen:
     final StringBuilder msg = new StringBuilder();
@@ -223,7 +247,7 @@ public class BoidsDemo extends SceneGame {
       @Override public void onEmit (Pointer.Event event) {
         if (event.kind.isStart) {
           if (numberOfPteros <= 1000)
-            pteros.add(new Ptero(pterosLayer, event.x(), event.y()));
+            pteros.add(new Ptero(pteros, event.x(), event.y()));
 
           // update the on screen counter
           msg.delete(0,msg.length());
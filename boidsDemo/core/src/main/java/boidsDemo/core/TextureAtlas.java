@@ -0,0 +1,84 @@
+package boidsDemo.core;
+
+import react.Function;
+import react.RFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import playn.core.Canvas;
+import playn.core.Graphics;
+import playn.core.Image;
+import playn.core.Texture;
+import playn.core.Tile;
+
+/**
+ * Packs a sequence of images (the frames of an animation, say) into a single texture.
+ *
+ * Layers that show tiles of the same texture can all be drawn in one batch: the batch only has
+ * to be flushed when the texture changes.  So cycling through the frames of an atlas, instead of
+ * through separate images, costs no texture switches.
+ */
+public class TextureAtlas {
+
+  // pixels left empty around each image, so that linear filtering does not bleed neighbours in
+  static final int PADDING = 1;
+
+  /**
+   * Waits for the images to load, then packs them.  The tiles are in the same order as the
+   * images.  If any image fails to load, so does the atlas.
+   */
+  public static RFuture<Tile[]> pack(final Graphics gfx, Image... images) {
+    List<RFuture<Image>> states = new ArrayList<>();
+    for (Image image : images)
+      states.add(image.state);
+    return RFuture.sequence(states).map(new Function<List<Image>, Tile[]>() {
+      @Override public Tile[] apply (List<Image> loaded) {
+        return packLoaded(gfx, loaded.toArray(new Image[loaded.size()]));
+      }
+    });
+  }
+
+  /**
+   * Packs already loaded images into rows ("shelves") of a texture about as wide as it is high.
+   * The texture is UNMANAGED, so it lives as long as the game does, whether or not any layer is
+   * showing one of its tiles.
+   */
+  public static Tile[] packLoaded(Graphics gfx, Image... images) {
+    // aim for a square: the width is the side of the total area, rounded up to a power of two
+    float area = 0, widest = 0;
+    for (Image image : images) {
+      area += (image.width() + 2*PADDING) * (image.height() + 2*PADDING);
+      widest = Math.max(widest, image.width() + 2*PADDING);
+    }
+    int maxWidth = 1;
+    while (maxWidth < Math.max(widest, (float)Math.sqrt(area))) maxWidth *= 2;
+
+    // place the images left to right, starting a new row when one does not fit
+    float[] xs = new float[images.length], ys = new float[images.length];
+    float x = 0, y = 0, rowHeight = 0, width = 0;
+    for (int i = 0; i < images.length; i++) {
+      float w = images[i].width() + 2*PADDING, h = images[i].height() + 2*PADDING;
+      if (x + w > maxWidth) {
+        x = 0;
+        y += rowHeight;
+        rowHeight = 0;
+      }
+      xs[i] = x + PADDING;
+      ys[i] = y + PADDING;
+      x += w;
+      rowHeight = Math.max(rowHeight, h);
+      width = Math.max(width, x);
+    }
+
+    Canvas canvas = gfx.createCanvas(width, y + rowHeight);
+    for (int i = 0; i < images.length; i++)
+      canvas.draw(images[i], xs[i], ys[i]);
+    Texture texture = canvas.toTexture(Texture.Config.UNMANAGED); // Note: toTexture disposes canvas
+
+    Tile[] tiles = new Tile[images.length];
+    for (int i = 0; i < images.length; i++)
+      tiles[i] = texture.tile(xs[i], ys[i], images[i].width(), images[i].height());
+    return tiles;
+  }
+}
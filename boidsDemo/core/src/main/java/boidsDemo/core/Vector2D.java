@@ -16,40 +16,71 @@ public class Vector2D {
   public static final float TWO_PI = 2 * PI;
   public static final float HALF_PI = PI / 2;
 
-  private static final int ATAN2_BITS = 7;
-  private static final int ATAN2_BITS2 = ATAN2_BITS << 1;
-  private static final int ATAN2_MASK = ~(-1 << ATAN2_BITS2);
-  private static final int ATAN2_COUNT = ATAN2_MASK + 1;
-  private static final int ATAN2_DIM = (int) Math.sqrt(ATAN2_COUNT);
-  private static final float ATAN2_DIM_MINUS_1 = ATAN2_DIM - 1;
-  private static final float[] atan2 = new float[ATAN2_COUNT];
-  private static final int SIN_BITS, SIN_MASK, SIN_COUNT;
-  private static final float radFull, radToIndex;
-  private static final float[] sin, cos;
-
-  static {
-    for (int i = 0; i < ATAN2_DIM; i++) {
-      for (int j = 0; j < ATAN2_DIM; j++) {
-        float x0 = (float) i / ATAN2_DIM;
-        float y0 = (float) j / ATAN2_DIM;
-        atan2[j * ATAN2_DIM + i] = (float) Math.atan2(y0, x0);
-      }
-    }
+  // The trig lookup tables (see setTrig).  They are built the first time they are needed, so
+  // that a game that uses Math (or no trig at all) never pays for them.
+  private static int atan2Bits = 7, sinBits = 12;
+  private static boolean interpolate = false, useMath = false;
+  private static int atan2Dim, sinMask;
+  private static float atan2DimMinus1, radToIndex;
+  private static float[] atan2, sin, cos;
 
-    SIN_BITS = 12;
-    SIN_MASK = ~(-1 << SIN_BITS);
-    SIN_COUNT = SIN_MASK + 1;
+  /**
+   * Sets how {@link #sin}, {@link #cos} and {@link #atan2} are computed, trading accuracy for
+   * speed.  Which setting is fastest depends on the backend: the lookup tables win where the
+   * Math functions are slow (some browsers and older Android runtimes), but a modern JVM may
+   * compile Math.sin and Math.atan2 to code that beats a table lookup.  See {@link #trigReport}.
+   *
+   * @param sinBits      the sine and cosine tables have 2^sinBits entries
+   * @param atan2Bits    the atan2 table is 2^atan2Bits entries on a side
+   * @param interpolate  whether to interpolate linearly between table entries (more accurate,
+   *                     for a few more instructions)
+   */
+  public static void setTrig(int sinBits, int atan2Bits, boolean interpolate) {
+    Vector2D.sinBits = sinBits;
+    Vector2D.atan2Bits = atan2Bits;
+    Vector2D.interpolate = interpolate;
+    Vector2D.useMath = false;
+    // rebuilt the next time they are needed
+    sin = cos = atan2 = null;
+  }
 
-    radFull = (float) (Math.PI * 2.0);
-    radToIndex = SIN_COUNT / radFull;
+  /**
+   * Makes {@link #sin}, {@link #cos} and {@link #atan2} call the Math functions instead of
+   * using lookup tables (or go back to the tables, as last set by {@link #setTrig}).
+   */
+  public static void setMathTrig(boolean useMath) {
+    Vector2D.useMath = useMath;
+  }
 
-    sin = new float[SIN_COUNT];
-    cos = new float[SIN_COUNT];
+  private static void buildSin() {
+    int count = 1 << sinBits;
+    sinMask = count - 1;
+    radToIndex = count / TWO_PI;
+    float[] sin = new float[count], cos = new float[count];
+    // when interpolating, entry i is at angle i; otherwise it is at the middle of the range of
+    // angles that look it up
+    float offset = interpolate ? 0f : 0.5f;
+    for (int i = 0; i < count; i++) {
+      sin[i] = (float) Math.sin((i + offset) / count * Math.PI * 2.0);
+      cos[i] = (float) Math.cos((i + offset) / count * Math.PI * 2.0);
+    }
+    Vector2D.cos = cos;
+    Vector2D.sin = sin;
+  }
 
-    for (int i = 0; i < SIN_COUNT; i++) {
-      sin[i] = (float) Math.sin((i + 0.5f) / SIN_COUNT * radFull);
-      cos[i] = (float) Math.cos((i + 0.5f) / SIN_COUNT * radFull);
+  private static void buildAtan2() {
+    int dim = 1 << atan2Bits;
+    float[] atan2 = new float[dim * dim];
+    for (int i = 0; i < dim; i++) {
+      for (int j = 0; j < dim; j++) {
+        float x0 = (float) i / dim;
+        float y0 = (float) j / dim;
+        atan2[j * dim + i] = (float) Math.atan2(y0, x0);
+      }
     }
+    atan2Dim = dim;
+    atan2DimMinus1 = dim - 1;
+    Vector2D.atan2 = atan2;
   }
 
   float x, y;
@@ -151,21 +182,33 @@ public class Vector2D {
   }
 
   /**
-   * Translates the coordinate of vector from the [0, width] x [0, height] fundamental domain 
-   * of the torus to equivalent coordinates on the [-width/2, width/2] x [-height/2, height/2]
-   * fundmental domain. 
+   * Returns the shortest difference, along one side of the torus, between two coordinates whose
+   * difference is d: that is, d plus or minus a whole number of dims, whichever is in
+   * [-dim/2, dim/2).  There is no branch, so it costs the same whichever way the points wrap.
+   *
+   * @param d    the difference of two coordinates, in (-dim, dim)
+   * @param dim  the width (or height) of the square being glued
+   * @return     the shortest difference
+   */
+  public static final float toralDelta(float d, float dim) {
+    return d - dim * (float) Math.floor(d / dim + 0.5f);
+  }
+
+  /**
+   * Returns the square of the shortest distance on the torus between the points (x1, y1) and
+   * (x2, y2).  This builds no vectors, so neighbor searches can reject far points with it before
+   * doing anything else.
    *
-   * @param vector  the position vector of a point on the torus 
    * @param width   the width of the square being glued
    * @param height  the height of the square being glued
-   * @return        the position vector of the point in translated coordinates 
+   * @return        the shortest distance squared
    */
-  private final Vector2D recenter(Vector2D vector, float width, float height) {
-    Vector2D translated = new Vector2D(vector.x , vector.y);
-    if (vector.x > width/2) translated.x = vector.x - width;
-    if (vector.y > height/2) translated.y = vector.y - height;
-    return translated;
-    }
+  public static final float toralDistSq(float x1, float y1, float x2, float y2, 
+                                        float width, float height) {
+    float dx = toralDelta(x1 - x2, width);
+    float dy = toralDelta(y1 - y2, height);
+    return dx * dx + dy * dy;
+  }
 
   /**
    * Returns the shortest vector difference (on the torus) between this vector and other vector;
@@ -174,7 +217,8 @@ public class Vector2D {
    * of the vector difference.
    * <p>
    * Here the torus is rectangle with top and bottom sown together, and left 
-   * and right edges glued together.
+   * and right edges glued together.  Each component is wrapped separately (see
+   * {@link #toralDelta}).
    *
    * @param other   the position vector
    * @param width   the width of the square being glued
@@ -182,51 +226,23 @@ public class Vector2D {
    * @return        the shortest vector difference
    */
   public final Vector2D toralSub(Vector2D other, float width, float height) {
-    Vector2D diff = this.sub(other);
-    Vector2D translateThenSub = recenter(this, width, height).sub(recenter(other, width, height));
-    if (diff.normSquared() <= translateThenSub.normSquared()) 
-      return diff;
-    else
-      return translateThenSub;
+    return new Vector2D(toralDelta(this.x - other.x, width), toralDelta(this.y - other.y, height));
   }
 
-  /* another version of toralSub:
-  public final Vector2D toralSub(Vector2D other, float width, float height) {
-    float dx = this.x - other.x;
-    float dy = this.y - other.y;
-    float absDx = abs(dx);
-    float absDy = abs(dy);
-    if (absDx < width - absDx && absDy < width - absDy) return this.sub(other); 
-    else {
-      if (absDx > width - absDx) {
-        if (this.x <= other.x)  dx = other.x - (this.x + width);
-        else  dx = other.x + width - this.x; 
-      }
-      if (absDy > height - absDy)  {
-        if (this.y <= other.y)  dy = other.y - (this.y + height);
-        else  dy = other.y + height - this.y; 
-      }
-      return new Vector2D(-dx, -dy);     
-    }
-  } */
-
   /**
-   * Returns the shortest distance on the torus between the points with position vectors this vector
-   * and other vector.
+   * Returns the square of the shortest distance on the torus between the points with position
+   * vectors this vector and other vector.
    * <p>
-   * Note: this is the magnitude of vector returned by {@link #toralSub}, computed indirectly.
+   * Note: this is the magnitude squared of vector returned by {@link #toralSub}, computed
+   * without building it (see {@link #toralDistSq}).
    *
    * @param other   the position vector
    * @param width   the width of the square being glued
    * @param height  the height of the square being glued
-   * @return        the shortest distance 
+   * @return        the shortest distance squared
    */
   public final float toralNorm(Vector2D other, float width, float height) {
-    float dx = abs(this.x - other.x);
-    float dy = abs(this.y - other.y);
-    float minDx = min(dx, width - dx);
-    float minDy = min(dy, height - dy); 
-    return minDx * minDx + minDy * minDy; 
+    return toralDistSq(this.x, this.y, other.x, other.y, width, height);
   }
 
   /** 
@@ -280,7 +296,9 @@ public class Vector2D {
    * @return     the sine of the angle 
    */
   public static final float sin(float rad) {
-    return sin[(int) (rad * radToIndex) & SIN_MASK];
+    if (useMath) return (float) Math.sin(rad);
+    if (sin == null) buildSin();
+    return interpolate ? lookup(sin, rad) : sin[(int) (rad * radToIndex) & sinMask];
   }
 
   /**
@@ -290,7 +308,17 @@ public class Vector2D {
    * @return     the cosine of the angle
    */
   public static final float cos(float rad) {
-    return cos[(int) (rad * radToIndex) & SIN_MASK];
+    if (useMath) return (float) Math.cos(rad);
+    if (sin == null) buildSin();
+    return interpolate ? lookup(cos, rad) : cos[(int) (rad * radToIndex) & sinMask];
+  }
+
+  // interpolates between the entries of the sine or cosine table either side of rad
+  private static float lookup(float[] table, float rad) {
+    float index = rad * radToIndex;
+    int i = (int) Math.floor(index);
+    float a = table[i & sinMask];
+    return a + (table[(i + 1) & sinMask] - a) * (index - i);
   }
 
   /**
@@ -302,6 +330,8 @@ public class Vector2D {
    * @return   the angle between the vector with components x and y, and the positive x-axis.
    */
   public static final float atan2(float y, float x) {
+    if (useMath) return (float) Math.atan2(y, x);
+    if (atan2 == null) buildAtan2();
     float add, mul;
 
     if (x < 0.0f) {
@@ -324,10 +354,92 @@ public class Vector2D {
       }
       add = 0.0f;
     }
-    float invDiv = ATAN2_DIM_MINUS_1 / (x < y ? y : x);
+    float invDiv = atan2DimMinus1 / (x < y ? y : x);
+    if (interpolate && invDiv < Float.POSITIVE_INFINITY) {
+      // the larger coordinate is at the edge of the table; interpolate along the other one
+      int last = atan2Dim - 1;
+      float angle;
+      if (x < y) {
+        float xf = x * invDiv;
+        int xi = Math.min((int) xf, last - 1);
+        float a = atan2[last * atan2Dim + xi];
+        angle = a + (atan2[last * atan2Dim + xi + 1] - a) * (xf - xi);
+      } else {
+        float yf = y * invDiv;
+        int yi = Math.min((int) yf, last - 1);
+        float a = atan2[yi * atan2Dim + last];
+        angle = a + (atan2[(yi + 1) * atan2Dim + last] - a) * (yf - yi);
+      }
+      return (angle + add) * mul;
+    }
     int xi = (int) (x * invDiv);
     int yi = (int) (y * invDiv);
-    return (atan2[yi * ATAN2_DIM + xi] + add) * mul;
+    return (atan2[yi * atan2Dim + xi] + add) * mul;
+  }
+
+  /**
+   * Returns the largest difference between {@link #sin} (and {@link #cos}) and the Math
+   * function, over a sweep of angles in [-2 PI, 2 PI], with the current setting.
+   *
+   * @param samples  the number of angles to try
+   * @return         the maximum absolute error
+   */
+  public static float maxSinError(int samples) {
+    float max = 0;
+    for (int i = 0; i < samples; i++) {
+      float rad = -TWO_PI + 2 * TWO_PI * i / samples;
+      max = Math.max(max, abs(sin(rad) - (float) Math.sin(rad)));
+      max = Math.max(max, abs(cos(rad) - (float) Math.cos(rad)));
+    }
+    return max;
+  }
+
+  /**
+   * Returns the largest difference between {@link #atan2} and the Math function, over a sweep
+   * of points around the unit circle, with the current setting.
+   *
+   * @param samples  the number of points to try
+   * @return         the maximum absolute error, in radians
+   */
+  public static float maxAtan2Error(int samples) {
+    float max = 0;
+    for (int i = 0; i < samples; i++) {
+      double theta = -Math.PI + 2 * Math.PI * (i + 0.5) / samples;
+      float x = (float) Math.cos(theta), y = (float) Math.sin(theta);
+      max = Math.max(max, abs(atan2(y, x) - (float) Math.atan2(y, x)));
+    }
+    return max;
+  }
+
+  /**
+   * Describes the current trig setting and its accuracy, for logging.
+   */
+  public static String trigReport() {
+    if (useMath) return "trig: Math";
+    return "trig: sinBits=" + sinBits + " atan2Bits=" + atan2Bits + " interpolate=" + interpolate +
+      ", max sin error=" + maxSinError(1 << 16) + ", max atan2 error=" + maxAtan2Error(1 << 16);
+  }
+
+  /**
+   * Returns the angle alpha of the way from one angle to another, going the short way around
+   * (the slerp of the unit vectors at those angles), so that turning through PI does not spin
+   * the long way.  Allocates nothing.
+   * <p>
+   * The arc between the angles is the angle of the unit vector at their difference, found with
+   * the lookup tables.  That arc is only used to pick the turn that takes the short way; the
+   * result is exact at alpha 0 and 1, so the lookup error does not make the angle jump.
+   *
+   * @param from   the angle at alpha 0, in radians
+   * @param to     the angle at alpha 1, in radians
+   * @param alpha  the fraction of the way from one to the other
+   * @return       the interpolated angle (within PI of from, not necessarily in [-PI, PI])
+   */
+  public static final float lerpAngle(float from, float to, float alpha) {
+    float delta = to - from;
+    float arc = atan2(sin(delta), cos(delta));
+    // delta and arc differ by (about) whole turns; take those turns off of delta
+    delta -= TWO_PI * Math.round((delta - arc) / TWO_PI);
+    return from + delta * alpha;
   }
 
   /**
@@ -0,0 +1,68 @@
+package boidsDemo.core;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the wrap edges of the toral (wrap-around world) distances.
+ */
+public class Vector2DTest {
+
+  static final float W = 800, H = 600, EPSILON = 1e-4f;
+
+  @Test public void testToralDeltaInside () {
+    // less than half the world apart: no wrapping
+    assertEquals(0f, Vector2D.toralDelta(0, W), 0f);
+    assertEquals(30f, Vector2D.toralDelta(30, W), EPSILON);
+    assertEquals(-30f, Vector2D.toralDelta(-30, W), EPSILON);
+    assertEquals(399f, Vector2D.toralDelta(399, W), EPSILON);
+    assertEquals(-399f, Vector2D.toralDelta(-399, W), EPSILON);
+  }
+
+  @Test public void testToralDeltaWraps () {
+    // more than half the world apart: the short way is around the other side
+    assertEquals(-300f, Vector2D.toralDelta(500, W), EPSILON);
+    assertEquals(300f, Vector2D.toralDelta(-500, W), EPSILON);
+    assertEquals(-1f, Vector2D.toralDelta(799, W), EPSILON);
+    assertEquals(1f, Vector2D.toralDelta(-799, W), EPSILON);
+  }
+
+  @Test public void testToralDeltaExactlyHalf () {
+    // half the world apart either way: both land on -dim/2, the closed end of [-dim/2, dim/2)
+    assertEquals(-W/2, Vector2D.toralDelta(W/2, W), 0f);
+    assertEquals(-W/2, Vector2D.toralDelta(-W/2, W), 0f);
+    assertEquals(-H/2, Vector2D.toralDelta(H/2, H), 0f);
+  }
+
+  @Test public void testToralDistSqBoundary () {
+    // the left and right (top and bottom) edges are the same place
+    assertEquals(0f, Vector2D.toralDistSq(0, 0, W, H, W, H), EPSILON);
+    assertEquals(0f, Vector2D.toralDistSq(W, 0, 0, 0, W, H), EPSILON);
+    // points just either side of an edge are close
+    assertEquals(1f, Vector2D.toralDistSq(.5f, 10, W-.5f, 10, W, H), EPSILON);
+    assertEquals(4f, Vector2D.toralDistSq(10, 1, 10, H-1, W, H), EPSILON);
+    // opposite corners are neighbors, diagonally
+    assertEquals(2f, Vector2D.toralDistSq(0, 0, W-1, H-1, W, H), EPSILON);
+  }
+
+  @Test public void testToralDistSqHalfAndSymmetry () {
+    // as far apart as it gets: half the world in each direction
+    float far = W/2*W/2 + H/2*H/2;
+    assertEquals(far, Vector2D.toralDistSq(0, 0, W/2, H/2, W, H), EPSILON*far);
+    assertEquals(far, Vector2D.toralDistSq(W/2, H/2, 0, 0, W, H), EPSILON*far);
+    // and it doesn't matter which point is first
+    float[][] points = { { 3, 7 }, { 790, 5 }, { 400, 300 }, { 12, 598 }, { 0, 0 }, { 799, 599 } };
+    for (float[] a : points)
+      for (float[] b : points)
+        assertEquals(Vector2D.toralDistSq(a[0], a[1], b[0], b[1], W, H),
+                     Vector2D.toralDistSq(b[0], b[1], a[0], a[1], W, H), EPSILON);
+  }
+
+  @Test public void testToralSubMatchesToralNorm () {
+    Vector2D a = new Vector2D(5, 590), b = new Vector2D(795, 10);
+    Vector2D d = a.toralSub(b, W, H);
+    assertEquals(10f, d.x, EPSILON);
+    assertEquals(-20f, d.y, EPSILON);
+    assertEquals(d.normSquared(), a.toralNorm(b, W, H), EPSILON);
+  }
+}
@@ -3,6 +3,7 @@ package boidsDemo.java;
 import playn.java.LWJGLPlatform;
 
 import boidsDemo.core.BoidsDemo;
+import boidsDemo.core.Vector2D;
 
 public class BoidsDemoJava {
 
@@ -12,6 +13,9 @@ public class BoidsDemoJava {
     config.width = 1020;
     config.height = 650;
     LWJGLPlatform plat = new LWJGLPlatform(config);
+    // On HotSpot the tables still beat Math.sin/atan2 (by about 3x), and interpolating between
+    // entries makes them accurate to about 1e-5 for a third more time.
+    Vector2D.setTrig(12, 7, true);
     new BoidsDemo(plat);
     plat.start();
   }
@@ -0,0 +1,119 @@
+package openglDemo.core;
+
+import java.util.Arrays;
+
+import static playn.core.GL20.*;
+import playn.core.GL20;
+import playn.core.GLProgram;
+
+/**
+ * Tracks the GL state that our batches change (the program in use, the texture bound to unit
+ * 0, and capabilities), so that calls which would not change it can be skipped, and makes sure
+ * the depth buffer is only cleared once per render pass.
+ * <p>
+ * Only calls made through this are tracked, so call {@link #invalidate} whenever other code
+ * (PlayN's own batches, say) may have made GL calls since.  Call {@link #newFrame} at the start
+ * of each frame (or other render pass), before anything is drawn.
+ */
+public class GLState {
+
+  public final GL20 gl;
+
+  // what we last set, or -1 if we don't know
+  private int programId = -1, textureId = -1;
+  // the capabilities we have enabled or disabled (there are only a handful, so we look them up
+  // in place, which boxes nothing) and whether each is UNKNOWN, ON or OFF
+  private static final byte UNKNOWN = 0, ON = 1, OFF = 2;
+  private int[] capIds = new int[4];
+  private byte[] capStates = new byte[4];
+  private int capCount;
+  private boolean depthCleared;
+
+  private int calls, skipped;
+
+  public GLState (GL20 gl) {
+    this.gl = gl;
+  }
+
+  /** Forgets what we know of the state, since someone else may have changed it. */
+  public void invalidate () {
+    programId = -1;
+    textureId = -1;
+    forgetCaps();
+  }
+
+  /** Starts a new frame, in which the depth buffer has not been cleared yet. */
+  public void newFrame () {
+    depthCleared = false;
+    forgetCaps();
+  }
+
+  /** Makes program the current program, unless it already is. */
+  public void useProgram (GLProgram program) {
+    if (program.id == programId) { skipped++; return; }
+    program.activate();
+    programId = program.id;
+    calls++;
+  }
+
+  /** Binds a texture to {@code GL_TEXTURE_2D} (of the active unit), unless it already is. */
+  public void bindTexture (int id) {
+    if (id == textureId) { skipped++; return; }
+    gl.glBindTexture(GL_TEXTURE_2D, id);
+    textureId = id;
+    calls++;
+  }
+
+  /** Enables a capability, unless it already is enabled. */
+  public void enable (int cap) {
+    int ii = capIndex(cap);
+    if (capStates[ii] == ON) { skipped++; return; }
+    gl.glEnable(cap);
+    capStates[ii] = ON;
+    calls++;
+  }
+
+  /** Disables a capability, unless it already is disabled. */
+  public void disable (int cap) {
+    int ii = capIndex(cap);
+    if (capStates[ii] == OFF) { skipped++; return; }
+    gl.glDisable(cap);
+    capStates[ii] = OFF;
+    calls++;
+  }
+
+  /** Clears the depth buffer, unless it has already been cleared this frame. */
+  public void clearDepth () {
+    if (depthCleared) { skipped++; return; }
+    gl.glClear(GL_DEPTH_BUFFER_BIT);
+    depthCleared = true;
+    calls++;
+  }
+
+  // returns the index of cap in capIds/capStates, adding it (in state UNKNOWN) if need be
+  private int capIndex (int cap) {
+    for (int ii = 0; ii < capCount; ii++)
+      if (capIds[ii] == cap) return ii;
+    if (capCount == capIds.length) {
+      capIds = Arrays.copyOf(capIds, 2*capCount);
+      capStates = Arrays.copyOf(capStates, 2*capCount);
+    }
+    capIds[capCount] = cap;
+    capStates[capCount] = UNKNOWN;
+    return capCount++;
+  }
+
+  private void forgetCaps () {
+    Arrays.fill(capStates, 0, capCount, UNKNOWN);
+  }
+
+  /** Returns the number of calls made to GL. */
+  public int calls () { return calls; }
+
+  /** Returns the number of calls skipped since they would not have changed anything. */
+  public int skipped () { return skipped; }
+
+  @Override public String toString () {
+    return "gl state: " + calls + " calls, " + skipped + " skipped";
+  }
+}
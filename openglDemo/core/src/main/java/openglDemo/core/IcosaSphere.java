@@ -1,8 +1,15 @@
 package openglDemo.core;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
+
+import playn.core.Platform;
+import react.RFuture;
+import react.RPromise;
+import react.Slot;
 
 /**
  * Generate and multiply subdivide an icosahedron, pushing the vertices out to a sphere.
@@ -31,76 +38,108 @@ public class IcosaSphere {
    *               F_n = 4^n*20,  E_n = 2*E_(n-1)+3*F_(n-1),  V_n = V_(n-1)+E_(n-1)
    */
 
-  public class Vertex {
-    public final float x, y, z;
+  // the number of subdivisions, and whether the sphere has a seam (see the constructor)
+  public int depth;
+  public boolean seamless;
 
-    // creates a vertex whose length as a vector is lambda
-    public Vertex(float x, float y, float z, float lambda) {
-      float length = (float)Math.sqrt(x*x+y*y+z*z);
-      this.x = lambda*x/length; this.y = lambda*y/length; this.z = lambda*z/length;
-    }
+  // verts contains all of the vertices: vertex i is (verts[3i], verts[3i+1], verts[3i+2])
+  public float[] verts;
+  // the number of vertices
+  public int vertexCount;
+
+  // indices[] contains the triangular faces
+  // The vertices of the triangles are verts[3i], verts[3i+1], verts[3i+2], i = 0, 1, 2, ...
+  public int[] indices;
+
+  // uvs[] contains the texture coordinates of the vertices: vertex i has u = uvs[2i], v = uvs[2i+1].
+  // These wrap a texture around the sphere with its poles on the z axis and its seam (where the
+  // seamless sphere has doubled vertices) along the negative x axis.
+  public float[] uvs;
+
+  // adds a vertex in the direction of (x, y, z) whose length as a vector is lambda, and returns its
+  // index
+  private int addVertex(float x, float y, float z, float lambda) {
+    float length = (float)Math.sqrt(x*x+y*y+z*z);
+    int i = vertexCount++;
+    verts[3*i] = lambda*x/length; verts[3*i+1] = lambda*y/length; verts[3*i+2] = lambda*z/length;
+    return i;
   }
 
-  // a pair of integers a, b with a<=b where a and b are indices -- so an unoriented edge
-  // (this is used to avoid duplicating midpoint vertices when subdividing) 
-  public class Edge {
+  // An unoriented edge between vertices a and b is keyed by the long with the smaller index in its
+  // high half and the larger in its low half. The midpoints of the edges (used to avoid duplicating
+  // midpoint vertices when subdividing) are kept in an open addressing hash table of these keys,
+  // so that looking one up allocates nothing.
+  private long[] edgeKeys;
+  private int[] edgeMidpoints;
+  // 64 - log2(edgeKeys.length): the first slot of a key is the top bits of its (Fibonacci) hash
+  private int edgeShift;
+
+  private static long edgeKey(int a, int b) {
+    return (a < b) ? ((long)a << 32) | b : ((long)b << 32) | a;
+  }
 
-    final int a, b;
+  // returns the slot of key in the edge table: where it is, or else the empty slot where it goes
+  private int edgeSlot(long key) {
+    int mask = edgeKeys.length - 1;
+    int slot = (int)((key * 0x9E3779B97F4A7C15L) >>> edgeShift);
+    while (edgeKeys[slot] != key && edgeKeys[slot] != -1L) slot = (slot + 1) & mask;
+    return slot;
+  }
 
-    public Edge(int x, int y) {
-      if (x < y) { a = x; b =y;}
-      else {a = y; b =x;}
+  // empties the edge table, making room for (at least) the given number of edges
+  private void clearEdges(int edgeCount) {
+    int capacity = 16;
+    while (capacity < 2*edgeCount) capacity *= 2;  // keep it at most half full
+    if (edgeKeys == null || edgeKeys.length < capacity) {
+      edgeKeys = new long[capacity];
+      edgeMidpoints = new int[capacity];
+      edgeShift = 64 - Integer.numberOfTrailingZeros(capacity);
     }
+    Arrays.fill(edgeKeys, -1L);
+  }
 
-    // Note: this equals (along with hashcode below is sufficient for our purposes but 
-    // wouldn't be if we had subclasses of Edge.
-    @Override public boolean equals(Object other) {
-      boolean result = false;
-      if (other instanceof Edge) {
-        Edge that = (Edge) other;
-        result = (this.a == that.a && this.b == that.b);
-      }
-      return result;
-    }
+  // returns the index of the midpoint of the edge from vertex a to vertex b, creating it if need be
+  private int midpoint(int a, int b, float lambda) {
+    long key = edgeKey(a, b);
+    int slot = edgeSlot(key);
+    if (edgeKeys[slot] == key) return edgeMidpoints[slot];
+    int m = addVertex((verts[3*a]+verts[3*b])/2, (verts[3*a+1]+verts[3*b+1])/2,
+                      (verts[3*a+2]+verts[3*b+2])/2, lambda);
+    edgeKeys[slot] = key;
+    edgeMidpoints[slot] = m;
+    return m;
+  }
 
-    @Override public int hashCode() {
-      return (41 * (41 + this.a) + this.b);
+  // returns the number of distinct (unoriented) edges of the faces
+  private int countEdges(int[] faces) {
+    clearEdges(faces.length);
+    int count = 0;
+    for (int i=0; i<faces.length; i+=3) {
+      for (int j=0; j<3; j++) {
+        long key = edgeKey(faces[i+j], faces[i+((j+1) % 3)]);
+        int slot = edgeSlot(key);
+        if (edgeKeys[slot] != key) { edgeKeys[slot] = key; count++; }
+      }
     }
+    return count;
   }
 
-
   // subdivides a face, maintaining correct orientation
-  public int[] subDivideFaces (int[] faces, float lambda) {
+  public int[] subDivideFaces (int[] faces, int edgeCount, float lambda) {
 
     // We are replacing each face with 4 small faces -- we get (4-1)*num_old_faces total small faces
     int[] newFaces = new int[4*faces.length];
 
-    HashMap<Edge,Integer> existingMidpoints = new HashMap<>(); 
+    clearEdges(edgeCount);
 
     int[] m = new int[3]; // temporarily holds indices of midpoints in verts
 
     // for each face
     for (int i=0; i<faces.length; i+=3) {
 
-
       // Get the midpoint of each edge:  either create a new vertex or, if it already exists, get index of it.
-      // Put the edge of any newly created midpoint into the hashamp so we can check the hashmap to see if a 
-      // midpoint already exists.
-      for (int j=0; j<3; j++) {
-        Edge edge = new Edge(faces[i+j], faces[i+((j+1) % 3)]);
-        Integer mj = existingMidpoints.get(edge);
-        if (mj == null) {
-          Vertex newMidpoint = new Vertex((verts.get(faces[i+j]).x+verts.get(faces[i+((j+1) % 3)]).x)/2, 
-                                          (verts.get(faces[i+j]).y+verts.get(faces[i+((j+1) % 3)]).y)/2, 
-                                          (verts.get(faces[i+j]).z+verts.get(faces[i+((j+1) % 3)]).z)/2, lambda);
-          int currentSize = verts.size();
-          verts.add(currentSize, newMidpoint);
-          m[j] = currentSize;
-          existingMidpoints.put(edge, currentSize);
-        } else { 
-          m[j] = mj; 
-        }
-      } 
+      for (int j=0; j<3; j++) 
+        m[j] = midpoint(faces[i+j], faces[i+((j+1) % 3)], lambda);
 
       // add the four new small faces
       int startIdx = 12*i/3;
@@ -122,16 +161,9 @@ public class IcosaSphere {
     return newFaces;
   }
 
-  // verts contains all of the vertices
-  public List<Vertex> verts = new ArrayList<>(); 
-
-  // indices[] contains the triangular faces
-  // The vertices of the triangles are verts[3i], verts[3i+1], verts[3i+2], i = 0, 1, 2, ...
-  public int[] indices;
-
   public IcosaSphere(int depth, float lambda, boolean seamless)  {
-
-    int[] newIndices;
+    this.depth = depth;
+    this.seamless = seamless;
 
     // generate an icosahedron.  If seamless, then add two more vertices and four more faces so that
     // the intersection of the icosahedron with the plane z=0 consists completely of edges.
@@ -143,29 +175,30 @@ public class IcosaSphere {
 
     float phi = (1f + (float)Math.sqrt(5))/2f;
 
-    // define the vertices:
-    verts.add(0, new Vertex(-1f,  phi, 0, lambda)); 
-    verts.add(1, new Vertex( 1f,  phi, 0, lambda)); 
-    verts.add(2, new Vertex(-1f, -phi, 0, lambda)); 
-    verts.add(3, new Vertex( 1f, -phi, 0, lambda)); 
+    // define the vertices (room for just these, for now; see below):
+    verts = new float[3*(seamless ? 16 : 12)];
+    addVertex(-1f,  phi, 0, lambda); // 0
+    addVertex( 1f,  phi, 0, lambda); // 1
+    addVertex(-1f, -phi, 0, lambda); // 2
+    addVertex( 1f, -phi, 0, lambda); // 3
 
-    verts.add(4, new Vertex(0, -1f,  phi, lambda)); 
-    verts.add(5, new Vertex(0,  1f,  phi, lambda)); 
-    verts.add(6, new Vertex(0, -1f, -phi, lambda)); 
-    verts.add(7, new Vertex(0,  1f, -phi, lambda)); 
+    addVertex(0, -1f,  phi, lambda); // 4
+    addVertex(0,  1f,  phi, lambda); // 5
+    addVertex(0, -1f, -phi, lambda); // 6
+    addVertex(0,  1f, -phi, lambda); // 7
 
-    verts.add(8, new Vertex( phi, 0, -1f, lambda)); 
-    verts.add(9, new Vertex( phi, 0,  1f, lambda)); 
+    addVertex( phi, 0, -1f, lambda); // 8
+    addVertex( phi, 0,  1f, lambda); // 9
     if (seamless) {
-      verts.add(10, new Vertex(-phi, 0.0001f, -1f, lambda)); 
-      verts.add(11, new Vertex(-phi, 0.0001f,  1f, lambda)); 
-      verts.add(12, new Vertex(-phi, -0.0001f, -1f, lambda)); 
-      verts.add(13, new Vertex(-phi, -0.0001f,  1f, lambda)); 
-      verts.add(14, new Vertex(0, 0, phi, lambda)); // midpoint 4 to 5
-      verts.add(15, new Vertex(0, 0, -phi, lambda)); // midpoint 6 to 7
+      addVertex(-phi, 0.0001f, -1f, lambda); // 10
+      addVertex(-phi, 0.0001f,  1f, lambda); // 11
+      addVertex(-phi, -0.0001f, -1f, lambda); // 12
+      addVertex(-phi, -0.0001f,  1f, lambda); // 13
+      addVertex(0, 0, phi, lambda); // 14, midpoint 4 to 5
+      addVertex(0, 0, -phi, lambda); // 15, midpoint 6 to 7
     } else {
-      verts.add(10, new Vertex(-phi, 0, -1f, lambda)); 
-      verts.add(11, new Vertex(-phi, 0,  1f, lambda)); 
+      addVertex(-phi, 0, -1f, lambda); // 10
+      addVertex(-phi, 0,  1f, lambda); // 11
     }
 
     // define the triangular faces:
@@ -230,13 +263,121 @@ public class IcosaSphere {
     }
     indices[57] = 9; indices[58] = 8; indices[59] = 1; 
 
-    for (int i=0; i<depth; i++) {
-      newIndices = subDivideFaces(indices, lambda);
-      indices = new int[newIndices.length];
-      System.arraycopy(newIndices, 0, indices, 0, newIndices.length);
+    // Using V_n = V_(n-1)+E_(n-1) and E_n = 2*E_(n-1)+3*F_(n-1) (see above), make room for all the
+    // vertices we will end up with. (We count E_0 since the seamless sphere isn't the icosahedron.)
+    int edgeCount = countEdges(indices), vertexTotal = vertexCount;
+    int[] edgeCounts = new int[depth];
+    for (int i=0, faceCount=indices.length/3; i<depth; i++, faceCount*=4) {
+      edgeCounts[i] = edgeCount;
+      vertexTotal += edgeCount;
+      edgeCount = 2*edgeCount + 3*faceCount;
+    }
+    verts = Arrays.copyOf(verts, 3*vertexTotal);
+
+    for (int i=0; i<depth; i++) 
+      indices = subDivideFaces(indices, edgeCounts[i], lambda);
+    edgeKeys = null;
+    edgeMidpoints = null;
+
+    // the spherical coordinates of the vertices, computed once here rather than every frame
+    uvs = new float[2*vertexCount];
+    for (int i=0; i<vertexCount; i++) {
+      float x = verts[3*i], y = verts[3*i+1], z = verts[3*i+2];
+      float rho = (float)Math.sqrt(x*x+y*y+z*z);
+      uvs[2*i] = (float)(Math.atan2(y, x)/(2*Math.PI)+.5f);
+      uvs[2*i+1] = (float)(1-Math.acos(z/rho)/Math.PI);
+    }
+  }
+
+  // for fromBytes
+  private IcosaSphere() {}
+
+  /*
+   * Unit spheres (lambda = 1) are cached by depth and seamlessness, so that any number of spheres
+   * of the same depth share one copy of the geometry; draw them at their size by scaling their
+   * transform. The cached spheres are shared, so don't modify them.
+   */
+  private static final Map<Integer, IcosaSphere> units = new HashMap<Integer, IcosaSphere>();
+
+  private static Integer unitKey(int depth, boolean seamless) {
+    return 2*depth + (seamless ? 1 : 0);
+  }
+
+  // returns the cached unit sphere, building it if need be
+  public static IcosaSphere unit(int depth, boolean seamless) {
+    IcosaSphere sphere = units.get(unitKey(depth, seamless));
+    if (sphere == null) {
+      sphere = new IcosaSphere(depth, 1f, seamless);
+      units.put(unitKey(depth, seamless), sphere);
     }
+    return sphere;
+  }
+
+  // where load looks for a unit sphere precomputed by toBytes (see openglDemo.java.IcosaSphereWriter)
+  public static String assetPath(int depth, boolean seamless) {
+    return "meshes/icosa" + depth + (seamless ? "s" : "") + ".bin";
+  }
+
+  // Gets a unit sphere from the cache or else from its asset, or else (if there is no such asset)
+  // builds it.
+  public static RFuture<IcosaSphere> load(final Platform plat, final int depth, final boolean seamless) {
+    IcosaSphere cached = units.get(unitKey(depth, seamless));
+    if (cached != null) return RFuture.success(cached);
+    final RPromise<IcosaSphere> result = RPromise.create();
+    plat.assets().getBytes(assetPath(depth, seamless)).onSuccess(new Slot<ByteBuffer>() {
+      @Override public void onEmit (ByteBuffer bytes) {
+        IcosaSphere sphere = fromBytes(bytes);
+        units.put(unitKey(depth, seamless), sphere);
+        result.succeed(sphere);
+      }
+    }).onFailure(new Slot<Throwable>() {
+      @Override public void onEmit (Throwable cause) {
+        plat.log().warn("No precomputed sphere at " + assetPath(depth, seamless) + ", building it");
+        result.succeed(unit(depth, seamless));
+      }
+    });
+    return result;
+  }
+
+  /*
+   * The binary format (little endian) is:
+   *   int MAGIC, int depth, int seamless (0 or 1), int vertexCount, int number of indices,
+   *   the floats of verts, the floats of uvs,
+   *   the indices as unsigned shorts (or as ints, if there are more than 2^16 vertices).
+   * So a depth 5 seamless sphere is about 395K, instead of the 540K it would be with int indices.
+   */
+  private static final int MAGIC = 0x49434f31; // "ICO1"
+
+  public ByteBuffer toBytes() {
+    boolean shorts = vertexCount <= 0x10000;
+    ByteBuffer bytes = ByteBuffer.allocate(5*4 + 5*vertexCount*4 + indices.length*(shorts ? 2 : 4));
+    bytes.order(ByteOrder.LITTLE_ENDIAN);
+    bytes.putInt(MAGIC).putInt(depth).putInt(seamless ? 1 : 0).putInt(vertexCount).putInt(indices.length);
+    for (int i=0; i<3*vertexCount; i++) bytes.putFloat(verts[i]);
+    for (int i=0; i<2*vertexCount; i++) bytes.putFloat(uvs[i]);
+    for (int i=0; i<indices.length; i++) {
+      if (shorts) bytes.putShort((short)indices[i]);
+      else bytes.putInt(indices[i]);
+    }
+    bytes.flip();
+    return bytes;
+  }
 
-    System.out.println("length indices is: "+indices.length+". So "+indices.length/3+" triangles.");
-    System.out.println("length verts is: "+verts.size());
+  public static IcosaSphere fromBytes(ByteBuffer bytes) {
+    bytes.order(ByteOrder.LITTLE_ENDIAN);
+    if (bytes.getInt() != MAGIC) throw new IllegalArgumentException("Not an IcosaSphere mesh");
+    IcosaSphere sphere = new IcosaSphere();
+    sphere.depth = bytes.getInt();
+    sphere.seamless = bytes.getInt() != 0;
+    sphere.vertexCount = bytes.getInt();
+    sphere.indices = new int[bytes.getInt()];
+    sphere.verts = new float[3*sphere.vertexCount];
+    sphere.uvs = new float[2*sphere.vertexCount];
+    for (int i=0; i<sphere.verts.length; i++) sphere.verts[i] = bytes.getFloat();
+    for (int i=0; i<sphere.uvs.length; i++) sphere.uvs[i] = bytes.getFloat();
+    boolean shorts = sphere.vertexCount <= 0x10000;
+    for (int i=0; i<sphere.indices.length; i++)
+      sphere.indices[i] = shorts ? bytes.getShort() & 0xffff : bytes.getInt();
+    return sphere;
   }
 }
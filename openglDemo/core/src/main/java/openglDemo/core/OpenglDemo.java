@@ -7,7 +7,9 @@ import playn.core.*;
 
 import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import react.RFuture;
 import react.UnitSlot;
@@ -24,12 +26,48 @@ public class OpenglDemo extends SceneGame {
 
   final float width, height;
 
-  public OpenglDemo (final Platform plat) {
+  // the GL state shared by the spheres' batches, so that they share one depth buffer clear a frame
+  final GLState glState;
+  private boolean logGLStats = false;
+  private int statsCount = 0;
+
+  // the uploaded unit spheres, by depth: every sphere of a depth is drawn with the same mesh, scaled
+  // to its size by its transform (a depth maps to null while its sphere is loading)
+  private final Map<Integer, Triangle3dBatch.Mesh> meshes = new HashMap<>();
+  // whether to load the spheres from precomputed assets (see IcosaSphere.load) rather than build them
+  private final boolean loadMeshes;
+  // the levels of detail of the spheres (for logGLStats)
+  private final List<SphereLod> lods = new ArrayList<>();
+
+  public OpenglDemo (Platform plat) {
+    this(plat, false);
+  }
+
+  /**
+   * @param loadMeshes  if true, load the spheres from the assets written by IcosaSphereWriter
+   *                    (building any that are missing) rather than build them all.
+   */
+  public OpenglDemo (final Platform plat, boolean loadMeshes) {
     super(plat, 33); // update our "simulation" 33ms (30 times per second)
+    this.loadMeshes = loadMeshes;
 
     width = plat.graphics().viewSize.width();
     height = plat.graphics().viewSize.height();
 
+    glState = new GLState(plat.graphics().gl);
+    // the layers are painted after this
+    paint.connect(new Slot<Clock>() {
+      @Override public void onEmit (Clock clock) {
+        glState.newFrame();
+        if (logGLStats && ++statsCount % 100 == 0) {
+          plat.log().info(glState.toString());
+          String depths = "";
+          for (SphereLod lod : lods) depths += " " + lod.depth();
+          plat.log().info("sphere depths:" + depths);
+        }
+      }
+    });
+
     final Image venus = plat.assets().getImage("images/venus.jpg");
     //final Image asteroid = plat.assets().getImage("images/asteroid.jpg");
     final Image earth = plat.assets().getImage("images/earth.jpg");
@@ -42,47 +80,45 @@ public class OpenglDemo extends SceneGame {
     
     RFuture.collect(Arrays.asList(venus.state, earth.state)).onSuccess(new UnitSlot() {
       public void onEmit () { 
-        addTriBatch(venus, 2, 150, width/2, height/2, .005f); 
-        addTriBatch(earth, 1, 40, width/6, height/2, .01f);
+        addTriBatch(venus, 150, width/2, height/2, .005f); 
+        addTriBatch(earth, 40, width/6, height/2, .01f);
       } 
     });
   }
     
-  void addTriBatch(Image tile, int  depth, float size, float centerX, float centerY, final float dAngle) {
+  // the depths that the spheres are drawn at (see SphereLod)
+  static final int MIN_DEPTH = 0, MAX_DEPTH = 5;
+
+  void addTriBatch(Image tile, float size, float centerX, float centerY, final float dAngle) {
     final Texture tileTex = tile.createTexture(Texture.Config.DEFAULT.repeat(true,true));
     //final Texture tileTex = tile.createTexture(new Texture.Config(true,true,false,1,1,true));
 
-    // get the data for an icosaSphere
-    IcosaSphere icosaSphere = new IcosaSphere(depth, size, true); 
-    
-    final float verts[] = new float[icosaSphere.verts.size()*3]; 
-    final int indices[] = new int[icosaSphere.indices.length]; 
-
-    // notice rotation about x = y = z
-    for (int i=0; i<icosaSphere.verts.size(); i++) {
-      IcosaSphere.Vertex vert = icosaSphere.verts.get(i);
-      verts[3*i] = vert.y;
-      verts[3*i+1] = vert.z;
-      verts[3*i+2] = vert.x;
-    }
-
-    for (int i=0; i<icosaSphere.indices.length; i++)
-      indices[i] = icosaSphere.indices[i]; 
-
     final AffineTransform af = new AffineTransform().
       scale(plat.graphics().scale().factor, plat.graphics().scale().factor).
-      translate(centerX, centerY);
+      translate(centerX, centerY).
+      scale(size, size);
 
-    final RotatingBatch rotatingBatch = new RotatingBatch(plat.graphics().gl, 2);
+    final RotatingBatch rotatingBatch = new RotatingBatch(plat.graphics().gl, 2, glState);
     rotatingBatch.angle = 0;
     rotatingBatch.eyeX = width/2;
     rotatingBatch.eyeY = height/2;
 
+    // The sphere is drawn with the mesh whose depth fits its radius on screen. The meshes never
+    // change (only the rotation angle does), so each is uploaded once, when first needed, and
+    // then just drawn every frame.
+    final SphereLod lod = new SphereLod(MIN_DEPTH, MAX_DEPTH);
+    lods.add(lod);
+
     rootLayer.add(new Layer() {
+      Triangle3dBatch.Mesh drawn; // the last mesh drawn, to draw while the one we want loads
+
       protected void paintImpl (Surface surf) {
-        rotatingBatch.addTris(tileTex, Tint.NOOP_TINT, af,
-          verts, 0, verts.length, tileTex.width(), tileTex.height(),
-          indices, 0, indices.length, 0);
+        // af scales the unit sphere to size (and then to pixels), so its scale is the radius
+        int depth = lod.depth(af.uniformScale());
+        requireMesh(rotatingBatch, depth);
+        Triangle3dBatch.Mesh mesh = meshes.get(depth);
+        if (mesh != null) drawn = mesh;
+        if (drawn != null) rotatingBatch.draw(drawn, tileTex, Tint.NOOP_TINT, af);
       }
     }.setBatch(rotatingBatch));
 
@@ -92,4 +128,29 @@ public class OpenglDemo extends SceneGame {
       }
     });
   }
+
+  // Gets the unit sphere of the given depth (once) and uploads it with batch (any batch will do:
+  // the mesh can be drawn by all of them).
+  void requireMesh(final Triangle3dBatch batch, final int depth) {
+    if (meshes.containsKey(depth)) return;
+    meshes.put(depth, null);
+    RFuture<IcosaSphere> sphere = loadMeshes ? IcosaSphere.load(plat, depth, true) : 
+      RFuture.success(IcosaSphere.unit(depth, true));
+    sphere.onSuccess(new Slot<IcosaSphere>() {
+      @Override public void onEmit (IcosaSphere icosaSphere) {
+        meshes.put(depth, upload(batch, icosaSphere));
+      }
+    });
+  }
+
+  static Triangle3dBatch.Mesh upload(Triangle3dBatch batch, IcosaSphere icosaSphere) {
+    // notice rotation about x = y = z (into a copy, since the unit spheres are shared)
+    float verts[] = new float[3*icosaSphere.vertexCount]; 
+    for (int i=0; i<icosaSphere.vertexCount; i++) {
+      verts[3*i] = icosaSphere.verts[3*i+1];
+      verts[3*i+1] = icosaSphere.verts[3*i+2];
+      verts[3*i+2] = icosaSphere.verts[3*i];
+    }
+    return batch.upload(verts, icosaSphere.uvs, icosaSphere.indices);
+  }
 }
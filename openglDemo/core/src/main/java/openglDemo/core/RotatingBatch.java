@@ -15,27 +15,44 @@ public class RotatingBatch extends Triangle3dBatch {
 
   public float angle;
   public float eyeX, eyeY;
-  private final int uAngle, uEye;
-
-  public RotatingBatch(GL20 gl, final float zScale) {
-    super(gl, new Source ()  {@Override public String vertex () {
-      return RotatingBatch.vertex(zScale);
-    }});
-    uAngle = program.getUniformLocation("u_Angle");
-    uEye = program.getUniformLocation("u_Eye");
+  // how much z is scaled down relative to x and y (so that the sphere fits in the depth range)
+  public float zScale;
+  // the locations of our uniforms in the full and the slim shader
+  private final int uAngle, uEye, uZScale, uSlimAngle, uSlimEye, uSlimZScale;
+
+  // Our shader doesn't depend on anything about the batch (zScale is a uniform), so every
+  // RotatingBatch shares the same compiled programs (see Triangle3dBatch.shader).
+  private static final Source SOURCE = new Source ()  {@Override public String vertex () {
+    return RotatingBatch.vertex();
+  }};
+
+  public RotatingBatch(GL20 gl, float zScale) {
+    this(gl, zScale, null);
   }
 
-  @Override public void begin (float fbufWidth, float fbufHeight, boolean flip) {
-    super.begin(fbufWidth, fbufHeight, flip);
-    program.activate();
-    gl.glUniform1f(uAngle, angle);
-    gl.glUniform2f(uEye, eyeX, eyeY);
+  // see Triangle3dBatch(GL20, Source, int, GLState)
+  public RotatingBatch(GL20 gl, float zScale, GLState state) {
+    super(gl, SOURCE, 1, state);
+    this.zScale = zScale;
+    uAngle = full.program.getUniformLocation("u_Angle");
+    uEye = full.program.getUniformLocation("u_Eye");
+    uZScale = full.program.getUniformLocation("u_ZScale");
+    uSlimAngle = (slim == null) ? -1 : slim.program.getUniformLocation("u_Angle");
+    uSlimEye = (slim == null) ? -1 : slim.program.getUniformLocation("u_Eye");
+    uSlimZScale = (slim == null) ? -1 : slim.program.getUniformLocation("u_ZScale");
   }
 
-  static String vertex (float zScale) {
+  @Override protected void setCustomUniforms (Shader shader) {
+    gl.glUniform1f(shader.slim ? uSlimAngle : uAngle, angle);
+    gl.glUniform2f(shader.slim ? uSlimEye : uEye, eyeX, eyeY);
+    gl.glUniform1f(shader.slim ? uSlimZScale : uZScale, zScale);
+  }
+
+  static String vertex () {
     return Triangle3dBatch.Source.VERT_UNIFS +
       "uniform float u_Angle;\n" +
       "uniform vec2 u_Eye;\n" +
+      "uniform float u_ZScale;\n" +
       Triangle3dBatch.Source.VERT_ATTRS +
 
       "attribute vec3 a_Position;\n" +
@@ -44,12 +61,14 @@ public class RotatingBatch extends Triangle3dBatch {
       Triangle3dBatch.Source.VERT_VARS +
 
       "void main(void) {\n" +
-      // Transform the vertex per the normal screen transform
+      // Transform the vertex per the normal screen transform, scaling z as much as x and y are
+      // scaled (on average), so that a unit mesh can be drawn at any size by scaling its transform
+      "  float scale = sqrt(abs(a_Matrix[0]*a_Matrix[3] - a_Matrix[1]*a_Matrix[2]));\n" +
       "  mat4 transform = mat4(\n" +
-      "    a_Matrix[0],      a_Matrix[1],      0, 0,\n" +
-      "    a_Matrix[2],      a_Matrix[3],      0, 0,\n" +
-      "    0,                0,                1, 0,\n" +
-      "    a_Translation[0], a_Translation[1], 0, 1);\n" +
+      "    a_Matrix[0],      a_Matrix[1],      0,     0,\n" +
+      "    a_Matrix[2],      a_Matrix[3],      0,     0,\n" +
+      "    0,                0,                scale, 0,\n" +
+      "    a_Translation[0], a_Translation[1], 0,     1);\n" +
       "  vec4 pos = transform * vec4(a_Position, 1);\n" +
 
      // Rotate the vertex per our 3D rotation
@@ -78,7 +97,7 @@ public class RotatingBatch extends Triangle3dBatch {
 
       // Finally convert the coordinates into OpenGL space
       "  pos.xy /= u_HScreenSize.xy;\n" +
-      "  pos.z  /= (u_HScreenSize.x * " + format(zScale) + ");\n" +
+      "  pos.z  /= (u_HScreenSize.x * u_ZScale);\n" +
       "  pos.xy -= 1.0;\n" +
       // z may already be rotated into negative space so we don't shift it
       "  pos.y  *= u_Flip;\n" +
@@ -93,22 +112,46 @@ public class RotatingBatch extends Triangle3dBatch {
   @Override public void addTris (float[] xys, int xysOffset, int xysLen, float tw, float th,
                        int[] indices, int indicesOffset, int indicesLen, int indexBase) {
     int vertIdx = beginPrimitive(xysLen/3, indicesLen), offset = vertPos;
-    float[] verts = vertices, stables = stableAttrs;
+    float[] verts = vertices;
     for (int ii = xysOffset, ll = ii+xysLen; ii < ll; ii += 3) {
       float x = xys[ii], y = xys[ii+1], z = xys[ii+2];
       //offset = add(verts, add(verts, offset, stables), x, y, z, x/tw, y/th);
+      offset = add(verts, addStables(verts, offset), x, y, z, sphereU(x, y, z), sphereV(x, y, z));
+    }
+    vertPos = offset;
+
+    addElems(vertIdx, indices, indicesOffset, indicesLen, indexBase);
+  }
 
-      // Spherical coords:
-      float rho = (float)Math.sqrt(x*x+y*y+z*z);
-      float u = (float)(Math.atan2(x,z)/(2*Math.PI)+.5f);
-      float v = (float)(1-Math.acos(y/rho)/Math.PI);
-      offset = add(verts, add(verts, offset, stables), x, y, z, u, v);
+  /**
+   * Adds triangles with precomputed texture coordinates (such as {@link IcosaSphere#uvs}), so
+   * this only copies data. Note that, unlike the 2D version, {@code xys} has three coordinates
+   * per vertex; {@code sxys} still has two, and {@code xysOffset} and {@code xysLen} are into
+   * {@code xys}.
+   */
+  @Override public void addTris (float[] xys, float[] sxys, int xysOffset, int xysLen,
+                       int[] indices, int indicesOffset, int indicesLen, int indexBase) {
+    int vertIdx = beginPrimitive(xysLen/3, indicesLen), offset = vertPos;
+    float[] verts = vertices;
+    for (int ii = xysOffset, jj = 2*xysOffset/3, ll = ii+xysLen; ii < ll; ii += 3, jj += 2) {
+      offset = add(verts, addStables(verts, offset), xys[ii], xys[ii+1], xys[ii+2], 
+                   sxys[jj], sxys[jj+1]);
     }
     vertPos = offset;
 
     addElems(vertIdx, indices, indicesOffset, indicesLen, indexBase);
   }
 
+  // Spherical coords (for triangles added without texture coordinates):
+  public static float sphereU (float x, float y, float z) {
+    return (float)(Math.atan2(x,z)/(2*Math.PI)+.5f);
+  }
+
+  public static float sphereV (float x, float y, float z) {
+    float rho = (float)Math.sqrt(x*x+y*y+z*z);
+    return (float)(1-Math.acos(y/rho)/Math.PI);
+  }
+
   protected static int add (float[] into, int offset, float x, float y, float z, float sx, float sy) {
     into[offset++] = x;
     into[offset++] = y;
@@ -118,8 +161,4 @@ public class RotatingBatch extends Triangle3dBatch {
     return offset;
   }
 
-  public static String format (float value) {
-    String fmt = String.valueOf(value);
-    return fmt.indexOf('.') == -1 ? (fmt + ".0") : fmt;
-  }
 }
@@ -0,0 +1,51 @@
+package openglDemo.core;
+
+/**
+ * Level of detail for an IcosaSphere: picks the subdivision depth to draw a sphere at from its
+ * radius on screen.
+ *
+ * A little math (see also IcosaSphere): the edges of the icosahedron subtend an angle of
+ * theta_0 = atan(2) at the center, and each subdivision halves that, so after n subdivisions an
+ * edge of a sphere of radius r is a chord that misses the sphere by (about)
+ *               r*(1 - cos(theta_0/2^(n+1))).
+ * We use the least depth for which that is within {@link #tolerance} pixels.  Since the error
+ * quarters with each subdivision, a sphere whose radius hovers near a boundary would switch back
+ * and forth (and visibly pop), so we only go back to a coarser depth once it would be within
+ * {@link #hysteresis} of the tolerance.
+ */
+public class SphereLod {
+
+  private static final double EDGE_ANGLE = Math.atan(2);
+
+  public final int minDepth, maxDepth;
+  // how far (in pixels) the triangles may be from the sphere
+  public float tolerance = .5f;
+  // the fraction of the tolerance a coarser depth must be within before we switch to it
+  public float hysteresis = .5f;
+
+  private int depth;
+
+  public SphereLod(int minDepth, int maxDepth) {
+    this.minDepth = minDepth;
+    this.maxDepth = maxDepth;
+    depth = minDepth;
+  }
+
+  // returns how far (in pixels) the triangles of a sphere of the given depth and radius (in pixels)
+  // are from the sphere
+  public static float error(int depth, float radius) {
+    return (float)(radius*(1 - Math.cos(EDGE_ANGLE/(2 << depth))));
+  }
+
+  // returns the depth to draw a sphere of the given radius (in pixels) at this frame
+  public int depth(float radius) {
+    while (depth < maxDepth && error(depth, radius) > tolerance) depth++;
+    while (depth > minDepth && error(depth-1, radius) <= hysteresis*tolerance) depth--;
+    return depth;
+  }
+
+  // returns the depth that depth(float) last returned
+  public int depth() {
+    return depth;
+  }
+}
@@ -17,6 +17,12 @@
  */ 
 package openglDemo.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import pythagoras.f.AffineTransform;
 import static playn.core.GL20.*;
 import playn.core.*;
@@ -79,6 +85,30 @@ public class Triangle3dBatch extends QuadBatch {
       "float green = (a_Color.y - blue) / 256.0;\n" +
       "v_Color = vec4(red / 255.0, green / 255.0, blue / 255.0, alpha / 255.0);\n";
 
+    /**
+     * Declares the same-for-all-verts values as uniforms, and names them as the attributes they
+     * replace (see {@link #slimVertex}).
+     */
+    public static final String VERT_UNIF_STABLES =
+      "uniform vec4 u_Matrix;\n" +
+      "uniform vec2 u_Translation;\n" +
+      "uniform vec2 u_Color;\n" +
+      "#define a_Matrix u_Matrix\n" +
+      "#define a_Translation u_Translation\n" +
+      "#define a_Color u_Color\n";
+
+    /**
+     * Returns the source of the slim variant of the vertex shader program, which takes the
+     * same-for-all-verts values as uniforms, so that its vertices need only the varies-per-vert
+     * attributes. This is {@link #vertex} with {@link #VERT_ATTRS} swapped for {@link
+     * #VERT_UNIF_STABLES}, so a custom shader that declares its stable attributes with {@link
+     * #VERT_ATTRS} gets a slim variant for free. Returns null if there isn't one.
+     */
+    public String slimVertex () {
+      String vertex = vertex();
+      return vertex.contains(VERT_ATTRS) ? vertex.replace(VERT_ATTRS, VERT_UNIF_STABLES) : null;
+    }
+
     /** Returns the source of the vertex shader program. */
     public String vertex () {
       return (VERT_UNIFS +
@@ -93,22 +123,153 @@ public class Triangle3dBatch extends QuadBatch {
     }
   }
 
+  /**
+   * Triangles whose vertices and indices live in GL buffers, uploaded once by {@link #upload}
+   * and drawn (any number of times) by {@link #draw}.  Close it when it is no longer needed.
+   * <p>
+   * A mesh with more vertices than 16-bit indices can address is kept as one buffer with 32-bit
+   * indices where the GL supports them, and otherwise is split into chunks (each of which is a
+   * draw call) of at most {@link #MAX_SHORT_VERTS} vertices.
+   */
+  public static class Mesh implements java.io.Closeable {
+
+    /** The number of vertices and of indices in the mesh. */
+    public final int vertexCount, elemCount;
+
+    private final GL20 gl;
+    private final int elemType;
+    private final int[] verticesIds, elementsIds, elemCounts;
+
+    Mesh (GL20 gl, int vertexCount, int elemCount, int elemType, int chunks) {
+      this.gl = gl;
+      this.vertexCount = vertexCount;
+      this.elemCount = elemCount;
+      this.elemType = elemType;
+      verticesIds = new int[chunks];
+      elementsIds = new int[chunks];
+      elemCounts = new int[chunks];
+    }
+
+    /** Returns the number of draw calls it takes to draw this mesh. */
+    public int drawCount () { return elemCounts.length; }
+
+    @Override public void close () {
+      gl.glDeleteBuffers(verticesIds.length, verticesIds, 0);
+      gl.glDeleteBuffers(elementsIds.length, elementsIds, 0);
+      gl.checkError("Triangle3dBatch.Mesh close");
+    }
+  }
+
+  /**
+   * A compiled variant of our shader program, and the locations of its variables.  These are
+   * shared by all the batches with the same shader source (see {@link #shader}).
+   */
+  protected static class Shader {
+    public final GLProgram program;
+    /** Whether this is the slim variant (see {@link Source#slimVertex}). */
+    public final boolean slim;
+    public final int uTexture, uHScreenSize, uFlip;
+    // stable (same for whole quad): uniforms in the slim variant, attributes in the other
+    public final int matrix, translation, color;
+    public final int aPosition, aTexCoord; // changing (varies per quad vertex)
+
+    // our key in shaders, and the number of batches using us
+    private final String key;
+    private int refs;
+
+    Shader (GL20 gl, String vertex, String fragment, boolean slim, String key) {
+      this.key = key;
+      program = new GLProgram(gl, vertex, fragment);
+      this.slim = slim;
+      uTexture = program.getUniformLocation("u_Texture");
+      uHScreenSize = program.getUniformLocation("u_HScreenSize");
+      uFlip = program.getUniformLocation("u_Flip");
+      if (slim) {
+        matrix = program.getUniformLocation("u_Matrix");
+        translation = program.getUniformLocation("u_Translation");
+        color = program.getUniformLocation("u_Color");
+      } else {
+        matrix = program.getAttribLocation("a_Matrix");
+        translation = program.getAttribLocation("a_Translation");
+        color = program.getAttribLocation("a_Color");
+      }
+      aPosition = program.getAttribLocation("a_Position");
+      aTexCoord = program.getAttribLocation("a_TexCoord");
+    }
+
+    void disableAttribs (GL20 gl) {
+      if (!slim) {
+        gl.glDisableVertexAttribArray(matrix);
+        gl.glDisableVertexAttribArray(translation);
+        gl.glDisableVertexAttribArray(color);
+      }
+      gl.glDisableVertexAttribArray(aPosition);
+      gl.glDisableVertexAttribArray(aTexCoord);
+    }
+  }
+
+  // the compiled shaders, by source
+  private static final Map<String, Shader> shaders = new HashMap<>();
+
+  /**
+   * Returns the compiled shader for the given source, compiling it only if no batch has it
+   * already.  Batches that differ only in the values of uniforms can so share one program
+   * (and the cost of compiling and linking it).  Call {@link #release} when done with it.
+   */
+  protected static Shader shader (GL20 gl, String vertex, String fragment, boolean slim) {
+    String key = vertex + "\n//fragment\n" + fragment;
+    Shader shader = shaders.get(key);
+    if (shader == null) {
+      shader = new Shader(gl, vertex, fragment, slim, key);
+      shaders.put(key, shader);
+    }
+    shader.refs++;
+    return shader;
+  }
+
+  /** Releases a shader got from {@link #shader}, closing it if no other batch is using it. */
+  protected static void release (Shader shader) {
+    if (--shader.refs > 0) return;
+    shaders.remove(shader.key);
+    shader.program.close();
+  }
+
+  /** The most vertices that 16-bit ({@code GL_UNSIGNED_SHORT}) indices can address. */
+  public static final int MAX_SHORT_VERTS = 0x10000;
+
+  /** The size (in floats) of a mesh (or slim) vertex: x, y, z, then u, v. */
+  protected static final int MESH_VERTEX_SIZE = 5;
+
   private static final int START_VERTS = 16*4;
-  private static final int EXPAND_VERTS = 16*4;
   private static final int START_ELEMS = 6*START_VERTS/4;
-  private static final int EXPAND_ELEMS = 6*EXPAND_VERTS/4;
   private static final int FLOAT_SIZE_BYTES = 4;
 
-  private final boolean delayedBinding;
+  /** Whether the GL can draw with 32-bit ({@code GL_UNSIGNED_INT}) indices. */
+  public final boolean uintIndices;
+
+  // the GL state we change, and whether it's ours alone (see the constructor)
+  protected final GLState state;
+  private final boolean ownsState;
+  private int texId;
+
+  // our shader, and its slim variant (null if the shader has none)
+  protected final Shader full, slim;
+  private Shader activeShader;
+
+  // Whether the vertices added since the last flush are slim: have no stable attributes, since
+  // they all have the same ones, slimStables. They are drawn with the slim shader, which takes
+  // those as uniforms. As soon as a vertex with different stable attributes is added, they are
+  // converted to full vertices (see unslim).
+  private boolean slimVerts;
+  private final float[] slimStables = new float[8];
 
-  protected final GLProgram program;
-  protected final int uTexture;
-  protected final int uHScreenSize;
-  protected final int uFlip;
-  protected final int aMatrix, aTranslation, aColor; // stable (same for whole quad)
-  protected final int aPosition, aTexCoord; // changing (varies per quad vertex)
+  // The GL buffers we stream into, in pairs that are used in turn, one pair per flush (see the
+  // constructor), and the number of bytes each buffer has been allocated on the GPU.
+  private final int[] verticesIds, elementsIds, verticesBytes, elementsBytes;
+  private int curBuffers;
 
-  protected final int verticesId, elementsId;
+  // the buffers in use
+  protected int verticesId, elementsId;
   protected final float[] stableAttrs;
   protected float[] vertices;
   protected short[] elements;
@@ -121,18 +282,42 @@ public class Triangle3dBatch extends QuadBatch {
 
   /** Creates a triangle batch with the supplied custom shader program. */
   public Triangle3dBatch (GL20 gl, Source source) {
+    this(gl, source, 1);
+  }
+
+  /**
+   * Creates a triangle batch with the supplied custom shader program, which streams into
+   * {@code bufferCount} pairs of GL buffers in turn.
+   * <p>
+   * With one pair, each flush orphans the buffers (respecifies their storage, at the same size)
+   * before updating them, so that the driver can give us fresh memory rather than wait for the
+   * GPU to finish drawing the previous flush. With two or three, each flush writes to the pair
+   * least recently drawn from, which lets the GPU use one while we fill another, without relying
+   * on the driver to orphan well. That is worth it for batches flushed many times a frame.
+   */
+  public Triangle3dBatch (GL20 gl, Source source, int bufferCount) {
+    this(gl, source, bufferCount, null);
+  }
+
+  /**
+   * Creates a triangle batch as above, which makes its GL calls through {@code state}, so that
+   * batches drawing in the same frame can share it.  Whoever draws the frame must then call
+   * {@link GLState#newFrame} at the start of it, and the depth buffer is cleared once, when the
+   * first of the batches draws.  If state is null, the batch uses its own, and clears the depth
+   * buffer once per {@link #begin}.
+   */
+  public Triangle3dBatch (GL20 gl, Source source, int bufferCount, GLState state) {
     super(gl);
-    delayedBinding = "Intel".equals(gl.glGetString(GL20.GL_VENDOR));
-
-    program = new GLProgram(gl, source.vertex(), source.fragment());
-    uTexture = program.getUniformLocation("u_Texture");
-    uHScreenSize = program.getUniformLocation("u_HScreenSize");
-    uFlip = program.getUniformLocation("u_Flip");
-    aMatrix = program.getAttribLocation("a_Matrix");
-    aTranslation = program.getAttribLocation("a_Translation");
-    aColor = program.getAttribLocation("a_Color");
-    aPosition = program.getAttribLocation("a_Position");
-    aTexCoord = program.getAttribLocation("a_TexCoord");
+    this.ownsState = (state == null);
+    this.state = ownsState ? new GLState(gl) : state;
+    uintIndices = supportsUintIndices(gl);
+
+    full = shader(gl, source.vertex(), source.fragment(), false);
+    // the slim shader only has uniforms for the standard stable attributes
+    String slimVertex = source.slimVertex();
+    slim = (slimVertex == null || stableAttrsSize() != 8) ? null :
+      shader(gl, slimVertex, source.fragment(), true);
+    slimVerts = slim != null;
 
     // create our vertex and index buffers
     stableAttrs = new float[stableAttrsSize()];
@@ -140,9 +325,13 @@ public class Triangle3dBatch extends QuadBatch {
     elements = new short[START_ELEMS];
 
     // create our GL buffers
-    int[] ids = new int[2];
-    gl.glGenBuffers(2, ids, 0);
-    verticesId = ids[0]; elementsId = ids[1];
+    verticesIds = new int[bufferCount];
+    elementsIds = new int[bufferCount];
+    verticesBytes = new int[bufferCount];
+    elementsBytes = new int[bufferCount];
+    gl.glGenBuffers(bufferCount, verticesIds, 0);
+    gl.glGenBuffers(bufferCount, elementsIds, 0);
+    verticesId = verticesIds[0]; elementsId = elementsIds[0];
 
     gl.checkError("Triangle3dBatch end ctor");
   }
@@ -169,6 +358,11 @@ public class Triangle3dBatch extends QuadBatch {
     stables[6] = (tint >> 16) & 0xFFFF; // ar
     stables[7] = (tint >>  0) & 0xFFFF; // gb
     addExtraStableAttrs(stables, 8);
+
+    if (slimVerts) {
+      if (vertPos == 0) System.arraycopy(stables, 0, slimStables, 0, 8);
+      else if (!Arrays.equals(stables, slimStables)) unslim();
+    }
   }
 
   /**
@@ -227,10 +421,10 @@ public class Triangle3dBatch extends QuadBatch {
   public void addTris (float[] xys, int xysOffset, int xysLen, float tw, float th,
                        int[] indices, int indicesOffset, int indicesLen, int indexBase) {
     int vertIdx = beginPrimitive(xysLen/2, indicesLen), offset = vertPos;
-    float[] verts = vertices, stables = stableAttrs;
+    float[] verts = vertices;
     for (int ii = xysOffset, ll = ii+xysLen; ii < ll; ii += 2) {
       float x = xys[ii], y = xys[ii+1];
-      offset = add(verts, add(verts, offset, stables), x, y, x/tw, y/th);
+      offset = add(verts, addStables(verts, offset), x, y, x/tw, y/th);
     }
     vertPos = offset;
 
@@ -244,9 +438,9 @@ public class Triangle3dBatch extends QuadBatch {
   public void addTris (float[] xys, float[] sxys, int xysOffset, int xysLen,
                        int[] indices, int indicesOffset, int indicesLen, int indexBase) {
     int vertIdx = beginPrimitive(xysLen/2, indicesLen), offset = vertPos;
-    float[] verts = vertices, stables = stableAttrs;
+    float[] verts = vertices;
     for (int ii = xysOffset, ll = ii+xysLen; ii < ll; ii += 2) {
-      offset = add(verts, add(verts, offset, stables), xys[ii], xys[ii+1], sxys[ii], sxys[ii+1]);
+      offset = add(verts, addStables(verts, offset), xys[ii], xys[ii+1], sxys[ii], sxys[ii+1]);
     }
     vertPos = offset;
 
@@ -262,48 +456,254 @@ public class Triangle3dBatch extends QuadBatch {
     prepare(tint, m00, m01, m10, m11, tx, ty);
 
     int vertIdx = beginPrimitive(4, 6); int offset = vertPos;
-    float[] verts = vertices, stables = stableAttrs;
-    offset = add(verts, add(verts, offset, stables), x1, y1, sx1, sy1);
-    offset = add(verts, add(verts, offset, stables), x2, y2, sx2, sy2);
-    offset = add(verts, add(verts, offset, stables), x3, y3, sx3, sy3);
-    offset = add(verts, add(verts, offset, stables), x4, y4, sx4, sy4);
+    float[] verts = vertices;
+    offset = add(verts, addStables(verts, offset), x1, y1, sx1, sy1);
+    offset = add(verts, addStables(verts, offset), x2, y2, sx2, sy2);
+    offset = add(verts, addStables(verts, offset), x3, y3, sx3, sy3);
+    offset = add(verts, addStables(verts, offset), x4, y4, sx4, sy4);
     vertPos = offset;
 
     addElems(vertIdx, QUAD_INDICES, 0, QUAD_INDICES.length, 0);
   }
 
+  /**
+   * Uploads triangles to GL buffers (with {@code GL_STATIC_DRAW}), to be drawn by {@link #draw}.
+   * Unlike {@link #addTris}, which copies every vertex into the batch every time it is drawn,
+   * this copies the vertices once; drawing the mesh again only sets a few attributes.
+   *
+   * @param xyz the vertices as: {@code [x1, y1, z1, x2, y2, z2, ...]}.
+   * @param uv the texture coordinates of the vertices as: {@code [u1, v1, u2, v2, ...]}.
+   * @param indices the index of the triangle vertices, three per triangle.
+   */
+  public Mesh upload (float[] xyz, float[] uv, int[] indices) {
+    int vertexCount = xyz.length/3;
+    if (uv.length != 2*vertexCount) throw new IllegalArgumentException(
+      "Need two texture coordinates per vertex: " + uv.length + " for " + vertexCount + " vertices");
+
+    Mesh mesh;
+    if (vertexCount <= MAX_SHORT_VERTS || uintIndices) {
+      // everything fits in one draw
+      boolean uint = vertexCount > MAX_SHORT_VERTS;
+      mesh = new Mesh(gl, vertexCount, indices.length, uint ? GL_UNSIGNED_INT : GL_UNSIGNED_SHORT, 1);
+      uploadChunk(mesh, 0, xyz, uv, null, vertexCount, indices, indices.length, uint);
+    } else {
+      mesh = uploadChunks(xyz, uv, indices);
+    }
+
+    // put back our own buffers, in case we are between begin() and end()
+    gl.glBindBuffer(GL_ARRAY_BUFFER, verticesId);
+    gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, elementsId);
+    gl.checkError("Triangle3dBatch upload");
+    return mesh;
+  }
+
+  // Splits the triangles into runs that use at most MAX_SHORT_VERTS distinct vertices, and uploads
+  // each run (with its own copy of those vertices) as a chunk.
+  private Mesh uploadChunks (float[] xyz, float[] uv, int[] indices) {
+    int vertexCount = xyz.length/3;
+    // local[v] is v's index in the current chunk, if chunkOf[v] is the current chunk
+    int[] local = new int[vertexCount], chunkOf = new int[vertexCount];
+    Arrays.fill(chunkOf, -1);
+    int[] chunkVerts = new int[MAX_SHORT_VERTS], chunkElems = new int[indices.length];
+    List<int[]> runs = new ArrayList<>(); // {first index, end index}
+
+    // first work out where the chunks start, so that we know how many there are
+    int chunk = 0, nverts = 0, start = 0;
+    for (int ii = 0; ii < indices.length; ii += 3) {
+      int added = 0;
+      for (int jj = ii; jj < ii+3; jj++) {
+        int v = indices[jj];
+        if (chunkOf[v] != chunk) { chunkOf[v] = chunk; added++; }
+      }
+      if (nverts + added > MAX_SHORT_VERTS) {
+        runs.add(new int[] { start, ii });
+        chunk++;
+        start = ii;
+        nverts = 0;
+        for (int jj = ii; jj < ii+3; jj++) {
+          int v = indices[jj];
+          if (chunkOf[v] != chunk) { chunkOf[v] = chunk; nverts++; }
+        }
+      } else nverts += added;
+    }
+    runs.add(new int[] { start, indices.length });
+
+    Mesh mesh = new Mesh(gl, vertexCount, indices.length, GL_UNSIGNED_SHORT, runs.size());
+    Arrays.fill(chunkOf, -1);
+    for (chunk = 0; chunk < runs.size(); chunk++) {
+      int[] run = runs.get(chunk);
+      nverts = 0;
+      for (int ii = run[0], kk = 0; ii < run[1]; ii++, kk++) {
+        int v = indices[ii];
+        if (chunkOf[v] != chunk) {
+          chunkOf[v] = chunk;
+          local[v] = nverts;
+          chunkVerts[nverts++] = v;
+        }
+        chunkElems[kk] = local[v];
+      }
+      uploadChunk(mesh, chunk, xyz, uv, chunkVerts, nverts, chunkElems, run[1] - run[0], false);
+    }
+    return mesh;
+  }
+
+  // Interleaves and uploads the given vertices (vertexIds[0..count), or the first count if
+  // vertexIds is null) and indices as chunk of mesh.
+  private void uploadChunk (Mesh mesh, int chunk, float[] xyz, float[] uv, int[] vertexIds,
+                            int count, int[] elems, int elemCount, boolean uint) {
+    float[] verts = new float[count*MESH_VERTEX_SIZE];
+    for (int ii = 0, offset = 0; ii < count; ii++) {
+      int v = (vertexIds == null) ? ii : vertexIds[ii];
+      verts[offset++] = xyz[3*v];
+      verts[offset++] = xyz[3*v+1];
+      verts[offset++] = xyz[3*v+2];
+      verts[offset++] = uv[2*v];
+      verts[offset++] = uv[2*v+1];
+    }
+
+    int[] ids = new int[2];
+    gl.glGenBuffers(2, ids, 0);
+    gl.glBindBuffer(GL_ARRAY_BUFFER, ids[0]);
+    gl.bufs.setFloatBuffer(verts, 0, verts.length);
+    gl.glBufferData(GL_ARRAY_BUFFER, verts.length*4, gl.bufs.floatBuffer, GL_STATIC_DRAW);
+    gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ids[1]);
+    if (uint) {
+      gl.bufs.setIntBuffer(elems, 0, elemCount);
+      gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, elemCount*4, gl.bufs.intBuffer, GL_STATIC_DRAW);
+    } else {
+      short[] shorts = new short[elemCount];
+      for (int ii = 0; ii < elemCount; ii++) shorts[ii] = (short)elems[ii];
+      gl.bufs.setShortBuffer(shorts, 0, elemCount);
+      gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, elemCount*2, gl.bufs.shortBuffer, GL_STATIC_DRAW);
+    }
+
+    mesh.verticesIds[chunk] = ids[0];
+    mesh.elementsIds[chunk] = ids[1];
+    mesh.elemCounts[chunk] = elemCount;
+  }
+
+  /**
+   * Draws a mesh made by {@link #upload}, with the given texture, tint and transform. Anything
+   * added to the batch before this is flushed first, so it is drawn in order.
+   */
+  public void draw (Mesh mesh, Texture tex, int tint, AffineTransform xf) {
+    setTexture(tex);
+    flush();
+    bindTexture();
+    prepare(tint, xf);
+
+    state.clearDepth(); // as in flush()
+
+    // the stable attributes are the same for every vertex, so we give them to the slim shader as
+    // uniforms, or else (for a custom shader with no slim variant) as constant attributes
+    float[] stables = stableAttrs;
+    Shader shader = (slim != null) ? slim : full;
+    useShader(shader);
+    if (slim != null) setStableUniforms(stables);
+    else {
+      gl.glDisableVertexAttribArray(full.matrix);
+      gl.glDisableVertexAttribArray(full.translation);
+      gl.glDisableVertexAttribArray(full.color);
+      gl.glVertexAttrib4f(full.matrix, stables[0], stables[1], stables[2], stables[3]);
+      gl.glVertexAttrib2f(full.translation, stables[4], stables[5]);
+      gl.glVertexAttrib2f(full.color, stables[6], stables[7]);
+    }
+
+    for (int ii = 0; ii < mesh.elemCounts.length; ii++) {
+      gl.glBindBuffer(GL_ARRAY_BUFFER, mesh.verticesIds[ii]);
+      bindAttribs(shader, true);
+      gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, mesh.elementsIds[ii]);
+      gl.glDrawElements(GL_TRIANGLES, mesh.elemCounts[ii], mesh.elemType, 0);
+    }
+    gl.checkError("Triangle3dBatch draw");
+    // (flush() binds our own buffers again)
+  }
+
+  /**
+   * Returns whether {@code GL_UNSIGNED_INT} indices can be used with {@code gl}: always on
+   * desktop GL, and with the {@code OES_element_index_uint} extension on OpenGL ES. (WebGL also
+   * has that extension, but it has to be enabled before use, which PlayN does not do.)
+   */
+  public static boolean supportsUintIndices (GL20 gl) {
+    String version = gl.glGetString(GL_VERSION);
+    if (version == null || version.startsWith("WebGL")) return false;
+    if (!version.startsWith("OpenGL ES")) return true;
+    String extensions = gl.glGetString(GL_EXTENSIONS);
+    return extensions != null && extensions.contains("OES_element_index_uint");
+  }
+
   @Override public void begin (float fbufWidth, float fbufHeight, boolean flip) {
     super.begin(fbufWidth, fbufHeight, flip);
-    program.activate();
-    gl.glUniform2f(uHScreenSize, fbufWidth/2f, fbufHeight/2f);
-    gl.glUniform1f(uFlip, flip ? -1 : 1);
-    // certain graphics cards (I'm looking at you, Intel) exhibit broken behavior if we bind our
-    // attributes once during activation, so for those cards we bind every time in flush()
-    if (!delayedBinding) bindAttribsBufs();
+    // other batches have been drawing since our last end()
+    state.invalidate();
+    if (ownsState) state.newFrame();
+    // set up the uniforms of both variants of the shader
+    if (slim != null) beginShader(slim, fbufWidth, fbufHeight, flip);
+    beginShader(full, fbufWidth, fbufHeight, flip);
+    activeShader = full;
+    gl.glActiveTexture(GL_TEXTURE0);
+    state.enable(GL_DEPTH_TEST); // Simmons added this line
     gl.checkError("Triangle3dBatch begin");
   }
 
-  private void bindAttribsBufs () {
-    gl.glBindBuffer(GL_ARRAY_BUFFER, verticesId);
+  private void beginShader (Shader shader, float fbufWidth, float fbufHeight, boolean flip) {
+    state.useProgram(shader.program);
+    gl.glUniform2f(shader.uHScreenSize, fbufWidth/2f, fbufHeight/2f);
+    gl.glUniform1f(shader.uFlip, flip ? -1 : 1);
+    gl.glUniform1i(shader.uTexture, 0);
+    setCustomUniforms(shader);
+  }
+
+  @Override public void setTexture (Texture tex) {
+    super.setTexture(tex);
+    texId = tex.id;
+  }
+
+  @Override protected void bindTexture () {
+    state.bindTexture(texId);
+  }
+
+  /**
+   * Sets the uniforms of a custom shader. This is called by {@link #begin} for each variant of
+   * the shader (see {@link Source#slimVertex}), with that variant active.
+   */
+  protected void setCustomUniforms (Shader shader) {}
+
+  // makes shader the active program (and disables the attributes of the one it replaces)
+  private void useShader (Shader shader) {
+    if (shader == activeShader) return;
+    if (activeShader != null) activeShader.disableAttribs(gl);
+    state.useProgram(shader.program);
+    activeShader = shader;
+  }
 
-    // bind our stable vertex attributes
-    int stride = vertexStride();
-    glBindVertAttrib(aMatrix, 4, GL_FLOAT, stride, 0);
-    glBindVertAttrib(aTranslation, 2, GL_FLOAT, stride, 16);
-    glBindVertAttrib(aColor, 2, GL_FLOAT, stride, 24);
+  private void setStableUniforms (float[] stables) {
+    gl.glUniform4f(slim.matrix, stables[0], stables[1], stables[2], stables[3]);
+    gl.glUniform2f(slim.translation, stables[4], stables[5]);
+    gl.glUniform2f(slim.color, stables[6], stables[7]);
+  }
+
+  // points the shader's attributes into the bound vertex buffer, which holds slim (or mesh)
+  // vertices or full ones
+  private void bindAttribs (Shader shader, boolean slimLayout) {
+    int stride, offset;
+    if (slimLayout) {
+      stride = MESH_VERTEX_SIZE*FLOAT_SIZE_BYTES;
+      offset = 0;
+    } else {
+      // bind our stable vertex attributes
+      stride = vertexStride();
+      glBindVertAttrib(shader.matrix, 4, GL_FLOAT, stride, 0);
+      glBindVertAttrib(shader.translation, 2, GL_FLOAT, stride, 16);
+      glBindVertAttrib(shader.color, 2, GL_FLOAT, stride, 24);
+      offset = stableAttrsSize()*FLOAT_SIZE_BYTES;
+    }
 
     // bind our changing vertex attributes
-    int offset = stableAttrsSize()*FLOAT_SIZE_BYTES;
     //glBindVertAttrib(aPosition, 2, GL_FLOAT, stride, offset);  
-    glBindVertAttrib(aPosition, 3, GL_FLOAT, stride, offset);  // Simmons changed this 
+    glBindVertAttrib(shader.aPosition, 3, GL_FLOAT, stride, offset);  // Simmons changed this 
     //glBindVertAttrib(aTexCoord, 2, GL_FLOAT, stride, offset+8);
-    glBindVertAttrib(aTexCoord, 2, GL_FLOAT, stride, offset+12); // Simmons changed this
-
-    gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, elementsId);
-    gl.glActiveTexture(GL_TEXTURE0);
-    gl.glUniform1i(uTexture, 0);
-
-    gl.glEnable(GL_DEPTH_TEST); // Simmons added this line
+    glBindVertAttrib(shader.aTexCoord, 2, GL_FLOAT, stride, offset+12); // Simmons changed this
   }
 
   @Override public void flush () {
@@ -311,20 +711,48 @@ public class Triangle3dBatch extends QuadBatch {
     if (vertPos > 0) {
       bindTexture();
 
-      gl.glClear(GL_DEPTH_BUFFER_BIT); // Simmons added this line
+      // Simmons added this (now once per frame, so that everything drawn in it is depth tested
+      // together)
+      state.clearDepth();
 
-      if (delayedBinding) {
-        bindAttribsBufs(); // see comments in activate()
-        gl.checkError("Triangle3dBatch.flush bind");
+      boolean rotate = verticesIds.length > 1;
+      if (rotate) {
+        // move on to the pair of buffers we drew from longest ago
+        curBuffers = (curBuffers + 1) % verticesIds.length;
+        verticesId = verticesIds[curBuffers];
+        elementsId = elementsIds[curBuffers];
       }
 
+      // We bind our attributes every flush, since they depend on which variant of the shader
+      // the vertices are for (and, besides, certain graphics cards (I'm looking at you, Intel)
+      // exhibit broken behavior if we bind them once during activation).
+      Shader shader = slimVerts ? slim : full;
+      useShader(shader);
+      if (slimVerts) setStableUniforms(slimStables);
+      gl.glBindBuffer(GL_ARRAY_BUFFER, verticesId);
+      bindAttribs(shader, slimVerts);
+      gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, elementsId);
+      gl.checkError("Triangle3dBatch.flush bind");
+
+      // The GPU buffers are kept as big as our arrays, and only (re)allocated when those grow.
+      // Otherwise we just update the part we use (orphaning the old contents first, if we are
+      // not rotating).
+      int vertBytes = vertices.length*FLOAT_SIZE_BYTES, elemBytes = elements.length*2;
+      if (verticesBytes[curBuffers] != vertBytes || !rotate) {
+        gl.glBufferData(GL_ARRAY_BUFFER, vertBytes, null, GL_STREAM_DRAW);
+        verticesBytes[curBuffers] = vertBytes;
+      }
+      if (elementsBytes[curBuffers] != elemBytes || !rotate) {
+        gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, elemBytes, null, GL_STREAM_DRAW);
+        elementsBytes[curBuffers] = elemBytes;
+      }
 
       gl.bufs.setFloatBuffer(vertices, 0, vertPos);
-      gl.glBufferData(GL_ARRAY_BUFFER, vertPos*4, gl.bufs.floatBuffer, GL_STREAM_DRAW);
+      gl.glBufferSubData(GL_ARRAY_BUFFER, 0, vertPos*4, gl.bufs.floatBuffer);
 
       gl.bufs.setShortBuffer(elements, 0, elemPos);
-      gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, elemPos*2, gl.bufs.shortBuffer, GL_STREAM_DRAW);
-      gl.checkError("Triangle3dBatch.flush BufferData");
+      gl.glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, 0, elemPos*2, gl.bufs.shortBuffer);
+      gl.checkError("Triangle3dBatch.flush BufferSubData");
 
 
       gl.glDrawElements(GL_TRIANGLES, elemPos, GL_UNSIGNED_SHORT, 0);
@@ -333,23 +761,41 @@ public class Triangle3dBatch extends QuadBatch {
       vertPos = 0;
       elemPos = 0;
     }
+
+    // start out slim again, with the stable attributes last prepared
+    slimVerts = slim != null;
+    System.arraycopy(stableAttrs, 0, slimStables, 0, 8);
+  }
+
+  // Converts the (slim) vertices added since the last flush into full ones, with the stable
+  // attributes they share, since the next ones will have different stable attributes. The full
+  // vertices fit, since beginPrimitive makes room for that many full vertices.
+  private void unslim () {
+    int count = vertPos / MESH_VERTEX_SIZE, size = vertexSize(), stableSize = stableAttrsSize();
+    float[] verts = vertices;
+    // work backwards, so that we don't write over vertices that haven't been moved yet
+    for (int ii = count-1; ii >= 0; ii--) {
+      System.arraycopy(verts, ii*MESH_VERTEX_SIZE, verts, ii*size + stableSize, MESH_VERTEX_SIZE);
+      System.arraycopy(slimStables, 0, verts, ii*size, stableSize);
+    }
+    vertPos = count*size;
+    slimVerts = false;
   }
 
   @Override public void end () {
     super.end();
-    gl.glDisableVertexAttribArray(aMatrix);
-    gl.glDisableVertexAttribArray(aTranslation);
-    gl.glDisableVertexAttribArray(aColor);
-    gl.glDisableVertexAttribArray(aPosition);
-    gl.glDisableVertexAttribArray(aTexCoord);
-    gl.glDisable(GL_DEPTH_TEST); // Simmons added this line
+    if (activeShader != null) activeShader.disableAttribs(gl);
+    activeShader = null;
+    state.disable(GL_DEPTH_TEST); // Simmons added this line
     gl.checkError("Triangle3dBatch end");
   }
 
   @Override public void close () {
     super.close();
-    program.close();
-    gl.glDeleteBuffers(2, new int[] { verticesId, elementsId }, 0);
+    release(full);
+    if (slim != null) release(slim);
+    gl.glDeleteBuffers(verticesIds.length, verticesIds, 0);
+    gl.glDeleteBuffers(elementsIds.length, elementsIds, 0);
     gl.checkError("Triangle3dBatch close");
   }
 
@@ -369,15 +815,23 @@ public class Triangle3dBatch extends QuadBatch {
 
   protected int beginPrimitive (int vertexCount, int elemCount) {
     // check whether we have enough room to hold this primitive
-    int vertIdx = vertPos / vertexSize();
+    int vertIdx = vertPos / (slimVerts ? MESH_VERTEX_SIZE : vertexSize());
     int verts = vertIdx + vertexCount, elems = elemPos + elemCount;
     int availVerts = vertices.length / vertexSize(), availElems = elements.length;
-    if (verts <= availVerts && elems <= availElems) return vertIdx;
+    if (verts <= MAX_SHORT_VERTS) {
+      // expand our buffers if needed, keeping what is in them
+      if (verts > availVerts) expandVerts(verts);
+      if (elems > availElems) expandElems(elems);
+      return vertIdx;
+    }
 
-    // otherwise, flush and expand our buffers if needed
+    // otherwise, our indices are 16-bit and can't address any more vertices, so flush (and a
+    // single primitive can't have more vertices than they can address)
+    if (vertexCount > MAX_SHORT_VERTS) throw new IllegalArgumentException(
+      "Too many vertices for one primitive: " + vertexCount + " (use upload() for big meshes)");
     flush();
-    if (verts > availVerts) expandVerts(verts);
-    if (elems > availElems) expandElems(elems);
+    if (vertexCount > availVerts) expandVerts(vertexCount);
+    if (elemCount > availElems) expandElems(elemCount);
     return 0;
   }
 
@@ -396,16 +850,23 @@ public class Triangle3dBatch extends QuadBatch {
     elemPos = offset;
   }
 
+  // Our arrays at least double when they grow, so that adding n vertices, a few at a time, only
+  // reallocates (and copies) log(n) times. The GPU buffers follow them in flush().
   private final void expandVerts (int vertCount) {
-    int newVerts = vertices.length / vertexSize();
-    while (newVerts < vertCount) newVerts += EXPAND_VERTS;
-    vertices = new float[newVerts*vertexSize()];
+    int newVerts = Math.min(Math.max(vertCount, 2*vertices.length / vertexSize()), MAX_SHORT_VERTS);
+    vertices = Arrays.copyOf(vertices, newVerts*vertexSize());
   }
 
   private final void expandElems(int elemCount) {
-    int newElems = elements.length;
-    while (newElems < elemCount) newElems += EXPAND_ELEMS;
-    elements = new short[newElems];
+    elements = Arrays.copyOf(elements, Math.max(elemCount, 2*elements.length));
+  }
+
+  /**
+   * Adds the stable attributes to a vertex at offset, unless the vertices being added are slim
+   * (in which case they are in uniforms instead). Returns the offset of the rest of the vertex.
+   */
+  protected final int addStables (float[] into, int offset) {
+    return slimVerts ? offset : add(into, offset, stableAttrs);
   }
 
   protected static int add (float[] into, int offset, float[] stables) {
@@ -421,6 +882,7 @@ public class Triangle3dBatch extends QuadBatch {
   protected static int add (float[] into, int offset, float x, float y, float sx, float sy) {
     into[offset++] = x;
     into[offset++] = y;
+    into[offset++] = 0; // z
     into[offset++] = sx;
     into[offset++] = sy;
     return offset;
@@ -0,0 +1,84 @@
+package openglDemo.java;
+
+import openglDemo.core.IcosaSphere;
+import openglDemo.core.RotatingBatch;
+
+/**
+ * Times, per frame, the CPU side of adding a sphere to a RotatingBatch: assembling the
+ * interleaved (x, y, z, u, v) vertices, either deriving the texture coordinates from each vertex
+ * (as {@link RotatingBatch#addTris} without uvs does) or copying the precomputed
+ * {@link IcosaSphere#uvs}.  The GL upload, which is the same either way, is left out, so this
+ * runs without a display:
+ * <pre>
+ * mvn -pl java compile exec:java -Dexec.mainClass=openglDemo.java.AddTrisBenchmark
+ * </pre>
+ */
+public class AddTrisBenchmark {
+
+  static final int VERTEX_SIZE = 5;
+
+  public static void main (String[] args) {
+    int frames = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+    for (int depth = 1; depth <= 5; depth++) {
+      IcosaSphere sphere = new IcosaSphere(depth, 1f, true);
+      // the vertices as the demo has them: rotated about x = y = z
+      float[] xyz = new float[3*sphere.vertexCount];
+      for (int i = 0; i < sphere.vertexCount; i++) {
+        xyz[3*i] = sphere.verts[3*i+1];
+        xyz[3*i+1] = sphere.verts[3*i+2];
+        xyz[3*i+2] = sphere.verts[3*i];
+      }
+      float[] verts = new float[VERTEX_SIZE*sphere.vertexCount];
+
+      // warm up (so both loops are compiled) and then time each
+      for (int i = 0; i < frames; i++) {
+        derived(verts, xyz);
+        precomputed(verts, xyz, sphere.uvs);
+      }
+      double before = time(frames, verts, xyz, null), after = time(frames, verts, xyz, sphere.uvs);
+      System.out.println("depth " + depth + " (" + sphere.vertexCount + " verts): " +
+                         round(before) + " us/frame derived, " + round(after) +
+                         " us/frame precomputed");
+    }
+    System.out.println("(checksum " + sink + ")");
+  }
+
+  // keeps the JIT from dropping the loops
+  static float sink;
+
+  // returns the microseconds per frame of filling verts, deriving the uvs if uvs is null
+  static double time (int frames, float[] verts, float[] xyz, float[] uvs) {
+    long start = System.nanoTime();
+    for (int i = 0; i < frames; i++) {
+      if (uvs == null) derived(verts, xyz);
+      else precomputed(verts, xyz, uvs);
+      sink += verts[i % verts.length];
+    }
+    return (System.nanoTime() - start) / 1000.0 / frames;
+  }
+
+  static void derived (float[] verts, float[] xyz) {
+    for (int ii = 0, offset = 0; ii < xyz.length; ii += 3) {
+      float x = xyz[ii], y = xyz[ii+1], z = xyz[ii+2];
+      verts[offset++] = x;
+      verts[offset++] = y;
+      verts[offset++] = z;
+      verts[offset++] = RotatingBatch.sphereU(x, y, z);
+      verts[offset++] = RotatingBatch.sphereV(x, y, z);
+    }
+  }
+
+  static void precomputed (float[] verts, float[] xyz, float[] uvs) {
+    for (int ii = 0, jj = 0, offset = 0; ii < xyz.length; ii += 3, jj += 2) {
+      verts[offset++] = xyz[ii];
+      verts[offset++] = xyz[ii+1];
+      verts[offset++] = xyz[ii+2];
+      verts[offset++] = uvs[jj];
+      verts[offset++] = uvs[jj+1];
+    }
+  }
+
+  static double round (double micros) {
+    return Math.round(micros * 10) / 10.0;
+  }
+}
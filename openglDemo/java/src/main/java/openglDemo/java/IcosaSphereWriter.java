@@ -0,0 +1,43 @@
+package openglDemo.java;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import openglDemo.core.IcosaSphere;
+
+/**
+ * Writes precomputed unit spheres (see {@link IcosaSphere#toBytes}) where {@link IcosaSphere#load}
+ * looks for them, so that deep spheres needn't be subdivided every time the demo starts:
+ * <pre>
+ * mvn -pl java compile exec:java -Dexec.mainClass=openglDemo.java.IcosaSphereWriter \
+ *   -Dexec.args="assets/src/main/resources/assets 0 5"
+ * </pre>
+ * run in openglDemo (exec:java runs in Maven's JVM, so relative paths are relative to where mvn
+ * is run) writes the seamless spheres of depths 0 to 5.  Then run the demo with
+ * {@code -DopenglDemo.loadMeshes=true}.
+ */
+public class IcosaSphereWriter {
+
+  public static void main (String[] args) throws IOException {
+    if (args.length != 3) {
+      System.err.println("Usage: IcosaSphereWriter assetsDir minDepth maxDepth");
+      System.exit(1);
+    }
+    File assets = new File(args[0]);
+    int minDepth = Integer.parseInt(args[1]), maxDepth = Integer.parseInt(args[2]);
+    for (int depth = minDepth; depth <= maxDepth; depth++) {
+      File file = new File(assets, IcosaSphere.assetPath(depth, true));
+      file.getParentFile().mkdirs();
+      ByteBuffer bytes = new IcosaSphere(depth, 1f, true).toBytes();
+      FileOutputStream out = new FileOutputStream(file);
+      try {
+        out.getChannel().write(bytes);
+      } finally {
+        out.close();
+      }
+      System.out.println("Wrote " + file + " (" + file.length() + " bytes)");
+    }
+  }
+}
@@ -10,7 +10,8 @@ public class OpenglDemoJava {
     LWJGLPlatform.Config config = new LWJGLPlatform.Config();
     // use config to customize the Java platform, if needed
     LWJGLPlatform plat = new LWJGLPlatform(config);
-    new OpenglDemo(plat);
+    // -DopenglDemo.loadMeshes=true: load the precomputed spheres (see IcosaSphereWriter)
+    new OpenglDemo(plat, Boolean.getBoolean("openglDemo.loadMeshes"));
     plat.start();
   }
 }
@@ -25,7 +25,14 @@ abstract class MovingEntity {
   ImageLayer imageLayer;
   Body body;
 
-  private float prevX, prevY, prevAngle;  // for interpolating the difference between updating and painting.
+  // The bodies' transforms (scene position and rotation) as published by the last two updates,
+  // shared by all entities. We paint by interpolating between these rather than by reading the
+  // body, since the body may be in the middle of a step on the physics thread (see
+  // PhysicsStepper.setAsync). Call transforms.snapshot() once per update, before updating.
+  static final InterpolationBuffer transforms = new InterpolationBuffer();
+
+  // this entity's slot in transforms
+  final int slot;
 
   // constructor for player and rectangles
   MovingEntity(Platform plat, GroupLayer groupLayer, World world,  float width, float height, float posX, float posY) {
@@ -38,15 +45,16 @@ abstract class MovingEntity {
     }
 
     Vec2 scenePosition = PhysicsDemo.toSceneCoords(body.getPosition());
-    prevX = scenePosition.x;
-    prevY = scenePosition.y;
-    prevAngle = -body.getAngle();
+    slot = transforms.add(scenePosition.x, scenePosition.y, -body.getAngle());
   }
 
   // constructor for bubbles
   MovingEntity(World world, GroupLayer groupLayer, String size, float posX, float posY) {
     body = initBubblePhysics(world, size, posX, posY);
     imageLayer = initBubbleImage(groupLayer, size);
+
+    Vec2 scenePosition = PhysicsDemo.toSceneCoords(body.getPosition());
+    slot = transforms.add(scenePosition.x, scenePosition.y, 0);
   }
 
   Body initRectanglePhysics(World world, float width, float height, float posX, float posY) {return body;}
@@ -58,28 +66,34 @@ abstract class MovingEntity {
   Body initPlayerPhysics(World world, float width, float height, float posX, float posY) {return body;}
   ImageLayer initPlayerImage(Platform plat, GroupLayer groupLayer, float height) {return imageLayer;}
 
+  // Publish the body's current position. Only call this while the world is not being stepped.
   void _update () {
     Vec2 scenePosition = PhysicsDemo.toSceneCoords(body.getPosition());
-    prevX = scenePosition.x;
-    prevY = scenePosition.y;
+    transforms.set(slot, scenePosition.x, scenePosition.y);
   };
 
   void _updateWithRotation () {
-    _update();
-    prevAngle = -body.getAngle();
+    Vec2 scenePosition = PhysicsDemo.toSceneCoords(body.getPosition());
+    transforms.set(slot, scenePosition.x, scenePosition.y, -body.getAngle());
   };
 
   void _paint(Clock clock) {
-    Vec2 scenePosition = PhysicsDemo.toSceneCoords(body.getPosition());
-    imageLayer.setTranslation(scenePosition.x * clock.alpha + prevX * (1f - clock.alpha),
-                              scenePosition.y * clock.alpha + prevY * (1f - clock.alpha));
+    imageLayer.setTranslation(transforms.x(slot, clock.alpha), transforms.y(slot, clock.alpha));
   }
 
+  // the angle is interpolated the short way around, so a body turning through PI doesn't spin
+  // all the way back for a frame
   void _paintWithRotation(Clock clock) {
     _paint(clock);
-    imageLayer.setRotation(-body.getAngle() * clock.alpha + prevAngle * (1f - clock.alpha));
+    imageLayer.setRotation(transforms.angle(slot, clock.alpha));
   }
 
+  // the rotation published by the last update
+  float angle() { return transforms.angle(slot); }
+
+  // frees this entity's slot in transforms; call when the entity is removed from the game
+  void _removeTransform() { transforms.remove(slot); }
+
   abstract void update();
   abstract void paint(Clock clock);
 }
@@ -73,6 +73,9 @@ public class PhysicsDemo extends SceneGame implements ContactListener {
 
   final World world;
 
+  // steps the world in fixed increments, no matter how long an update took
+  final PhysicsStepper stepper;
+
   private Player player;
 
   private static float width, height; // of the PlayN window.
@@ -95,6 +98,10 @@ public class PhysicsDemo extends SceneGame implements ContactListener {
   // you are trying to get your PlayN graphics to work correctly.
   private boolean showDebugDrawGraphics = false;
 
+  // Set this to true to log how many physics steps each update takes and how long they take.
+  private boolean logPhysicsStats = false;
+  private int statsCount;
+
   /** Convert from physical coordinates to game screen coordinates, */
   static Vec2 toSceneCoords (Vec2 physicsCoords) {
   // In the physical world the positive y-axis is upward.  In PlayN world is downward.  In
@@ -103,6 +110,15 @@ public class PhysicsDemo extends SceneGame implements ContactListener {
   }
 
   public PhysicsDemo (Platform plat) {
+    this(plat, null);
+  }
+
+  /**
+   * @param stepLatch  if not null, and the platform supports it, step the physics world on a 
+   *                   background thread while the game thread is painting, waiting for the
+   *                   steps with this (see PhysicsStepper.setAsync).
+   */
+  public PhysicsDemo (final Platform plat, StepLatch stepLatch) {
     super(plat, 25); // update every 25ms 
 
     final IDimension size = plat.graphics().viewSize;
@@ -130,6 +146,11 @@ public class PhysicsDemo extends SceneGame implements ContactListener {
     world = new World(gravity); 
     world.setContactListener(this);
 
+    // We update every 25ms and, as always in this demo, run physics at twice real time. So each
+    // update advances the world by .05 physics seconds, in (normally exactly one) fixed step.
+    stepper = new PhysicsStepper(plat, world, .05f);
+    stepper.setAsync(stepLatch);
+
     /** Define some (static) walls */
     // Create a GroupLayer for static objects and add it to the scene graph.
     GroupLayer staticLayer = new GroupLayer();
@@ -196,8 +217,11 @@ public class PhysicsDemo extends SceneGame implements ContactListener {
     // connect the code below to the update signal
     update.connect(new Slot<Clock>() {
       @Override public void onEmit (Clock clock) {
-        // the step delta is fixed so box2d isn't affected by framerate
-        world.step(clock.dt/500f, 10, 10);
+        // Wait for the last step, if it's running in the background, so that we can safely touch
+        // the world. (Then, below, start the next step after publishing the results of this one.)
+        stepper.sync();
+        // the transforms published by the last update become the ones we interpolate from
+        MovingEntity.transforms.snapshot();
         // Update moving objects (doesn't update player)
         for (MovingEntity entity : nonRemovable) 
           entity.update();
@@ -212,10 +236,16 @@ public class PhysicsDemo extends SceneGame implements ContactListener {
             world.destroyBody(entity.body);
             removable.remove(entity);
             entity.imageLayer.close();
+            entity._removeTransform();
           }
           toRemove.clear();
         }
         player.update();
+
+        // the step delta is fixed so box2d isn't affected by framerate
+        stepper.advance(clock.dt/500f);
+        if (logPhysicsStats && ++statsCount % 40 == 0) 
+          plat.log().info(stepper.toString());
       }
     });
 
@@ -238,6 +268,7 @@ public class PhysicsDemo extends SceneGame implements ContactListener {
     paint.connect(new Slot<Clock>() {
       @Override public void onEmit (Clock clock) {
         if (showDebugDrawGraphics) {
+          stepper.sync(); // the debug drawing reads the world
           debugDraw.canvas.clear();
           world.drawDebugData();
           debugLayer.tile().texture().update(debugDraw.canvas.image);
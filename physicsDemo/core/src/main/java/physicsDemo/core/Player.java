@@ -39,11 +39,21 @@ class Player extends RemovableEntity {
   private static final float HOR_VELOCITY = 8f; 
   private static final float VERT_VELOCITY = 10f; 
 
-  int numFeetContacts; // the number of entities this player is standing on (can't jump unless > 0)
+  // the number of entities this player is standing on (can't jump unless > 0). This is updated by
+  // the contact listener, which runs on the physics thread if physics is async.
+  volatile int numFeetContacts;
   private int jumpTimeout;
 
   private float xMultiplier = 1, desiredVx, desiredVy;
 
+  // Keyboard events can arrive while the world is being stepped (see PhysicsStepper.setAsync), so
+  // they don't push the body directly. They leave an impulse for the next update to apply.
+  private boolean impulsePending;
+  private float nudgeX;
+
+  // the horizontal velocity published by the last update
+  private float velX;
+
   Player (Platform plat, GroupLayer groupLayer, World world, float height, float posX, float posY) {
     super(plat, groupLayer, world, 331*height/360, height, posX, posY); // Note: the width is specific to running.png 
 
@@ -68,7 +78,7 @@ class Player extends RemovableEntity {
               if (jumpTimeout > 0) break;
               desiredVy = VERT_VELOCITY; jumpTimeout = 15; break;
             case DOWN:
-              body.applyLinearImpulse(new Vec2(100000000000f,0f), body.getPosition());//can get you unstuck
+              nudgeX += 100000000000f; //can get you unstuck
               break;
             default: break;
           }
@@ -77,16 +87,14 @@ class Player extends RemovableEntity {
           switch(event.key) {
             case LEFT: if (numFeetContacts > 0) desiredVx = 0; break;
             case RIGHT: if (numFeetContacts > 0) desiredVx = 0; break;
-            case UP: desiredVy =  0; break;
+            case UP: break; // a pending jump still gets applied (once) by update()
             case DOWN:
-              body.applyLinearImpulse(new Vec2(-100000000000f,0f), body.getPosition());//can get you unstuck
+              nudgeX -= 100000000000f; //can get you unstuck
               break;
             default: break;
           }
         }
-        body.applyLinearImpulse(new Vec2(body.getMass() * (desiredVx - body.getLinearVelocity().x), 
-                                         body.getMass() * desiredVy), body.getPosition());
-        desiredVy = 0;
+        impulsePending = true;
       }
     });
   }
@@ -157,10 +165,19 @@ class Player extends RemovableEntity {
   }
 
   @Override void update () {
+    if (impulsePending) {
+      body.applyLinearImpulse(new Vec2(body.getMass() * (desiredVx - body.getLinearVelocity().x) + nudgeX, 
+                                       body.getMass() * desiredVy), body.getPosition());
+      desiredVy = 0;
+      nudgeX = 0;
+      impulsePending = false;
+    }
+
     //keeps the player upright by gradually bringing it's angle back to zero.  We want there to be a slight rotation
     //so the player doesn't get frozen on the edge of a block.
     body.setTransform(body.getPosition(), -body.getAngle() + Math.min( .1f, Math.max( -.1f, body.getAngle())));
     _updateWithRotation();
+    velX = body.getLinearVelocity().x;
 
   } 
 
@@ -169,14 +186,14 @@ class Player extends RemovableEntity {
 
     imageLayer.setScaleX(xMultiplier * this.scale);
     imageLayer.setTx(imageLayer.tx() + xMultiplier*12f); //the 12f fixes noncentered pngs
-    imageLayer.setRotation((xMultiplier < 0) ? body.getAngle(): -body.getAngle());
+    imageLayer.setRotation((xMultiplier < 0) ? -angle(): angle());
 
     // animation stuff
-    if (Math.abs(body.getLinearVelocity().x) > .05 && numFeetContacts > 0) { // if running and feet touching something
+    if (Math.abs(velX) > .05 && numFeetContacts > 0) { // if running and feet touching something
       anim.add(new Flip(imageLayer, running));
       anim.addBarrier();
     }
-    else if (Math.abs(body.getLinearVelocity().x) > .05) { 
+    else if (Math.abs(velX) > .05) { 
       anim.clear();
     }
     else {
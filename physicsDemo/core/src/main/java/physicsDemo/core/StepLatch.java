@@ -0,0 +1,18 @@
+package physicsDemo.core;
+
+/**
+ * Blocks the game thread until the physics steps started on a background thread are done (see
+ * {@link PhysicsStepper#setAsync}).  Blocking takes threads, which the core can't count on (it is
+ * also compiled to JavaScript), so a backend that supports async execution supplies one.
+ */
+public interface StepLatch {
+
+  /** Called on the game thread just before the steps are started. */
+  void arm();
+
+  /** Called on the background thread when the steps are done (or have failed). */
+  void release();
+
+  /** Called on the game thread.  Returns once the steps last started are done. */
+  void await();
+}
@@ -0,0 +1,34 @@
+package physicsDemo.java;
+
+import java.util.concurrent.CountDownLatch;
+
+import physicsDemo.core.StepLatch;
+
+/**
+ * A {@link StepLatch} for the Java backend: a fresh {@link CountDownLatch} of one per update.
+ */
+public class CountDownStepLatch implements StepLatch {
+
+  private volatile CountDownLatch latch = new CountDownLatch(0);
+
+  @Override public void arm() {
+    latch = new CountDownLatch(1);
+  }
+
+  @Override public void release() {
+    latch.countDown();
+  }
+
+  @Override public void await() {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) Thread.currentThread().interrupt();
+  }
+}
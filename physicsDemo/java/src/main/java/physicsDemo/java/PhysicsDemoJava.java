@@ -12,7 +12,8 @@ public class PhysicsDemoJava {
     config.width = 800; 
     config.height = 600; 
     LWJGLPlatform plat = new LWJGLPlatform(config);
-    new PhysicsDemo(plat);
+    // step the physics on a background thread, overlapping with painting
+    new PhysicsDemo(plat, new CountDownStepLatch());
     plat.start();
   }
 }
@@ -10,7 +10,6 @@ import org.jbox2d.collision.shapes.CircleShape;
 
 import playn.scene.ImageLayer;
 import playn.scene.GroupLayer;
-import playn.core.Tile;
 import playn.core.Platform;
 import playn.core.Clock;
 
@@ -30,11 +29,12 @@ class Bubble extends RemovableEntity {
   @Override
   protected ImageLayer initBubbleImage(GroupLayer groupLayer, String size) {
 
-    // Get a tile of size the String argument size.
-    Tile tile = BubbleTextures.bubbleTiles.get(size);
+    // Get the tiles (one per level of detail) of size the String argument size.
+    lodTiles = BubbleTextures.bubbleTiles.get(size);
 
-    // Create a PlayN layer for the bubble.
-    imageLayer= new ImageLayer(tile);
+    // Create a PlayN layer for the bubble, sized in scene units whatever the level.
+    imageLayer= new ImageLayer(lodTiles[0]);
+    imageLayer.setSize(2*BubbleTextures.sizes.get(size), 2*BubbleTextures.sizes.get(size));
     imageLayer.setOrigin(ImageLayer.Origin.CENTER);
     groupLayer.addCenterAt(imageLayer, 0f, 0f);
     Vec2 scenePosition = RadGravDemo.toSceneCoords(body.getPosition());
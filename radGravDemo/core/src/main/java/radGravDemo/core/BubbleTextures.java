@@ -19,7 +19,9 @@ import java.util.Map;
 class BubbleTextures extends GroupLayer {
 
   static final Map<String, Float> sizes = new HashMap<String, Float>();
-  static final Map<String, Tile> bubbleTiles = new HashMap<String, Tile>();
+  // the bubbles, at each level of detail (see LodTextures)
+  static final Map<String, Tile[]> bubbleTiles = new HashMap<String, Tile[]>();
+  private final Texture[] textures = new Texture[LodTextures.LEVELS];
 
   BubbleTextures(Platform plat, float large, float medium, float small, float tiny) {
     this(plat, large, medium, small, tiny, true); 
@@ -41,38 +43,52 @@ class BubbleTextures extends GroupLayer {
     int innerColor =  0x00F8F8F8;
     if (solid) innerColor = outerColor;
 
-    /** Make four bubbles of different sizes on the same Texture:*/
-    // Create a canvas (a CPU bitmap) and draw four bubbles on it:
-    Canvas canvas = plat.graphics().createCanvas(8*sizes.get("LARGE"),2*sizes.get("LARGE"));
-    canvas.setFillColor(innerColor).fillCircle(sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("LARGE")).
-      setStrokeColor(outerColor).setStrokeWidth(sw).strokeCircle(sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("LARGE")-sw/2);
-    canvas.setFillColor(innerColor).fillCircle(3*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("MEDIUM")).
-      setStrokeColor(outerColor).setStrokeWidth(sw).strokeCircle(3*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("MEDIUM")-sw/2);
-    canvas.setFillColor(innerColor).fillCircle(5*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("SMALL")).
-      setStrokeColor(outerColor).setStrokeWidth(sw).strokeCircle(5*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("SMALL")-sw/2);
-    canvas.setFillColor(innerColor).fillCircle(7*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("TINY")).
-      setStrokeColor(outerColor).setStrokeWidth(sw).strokeCircle(7*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("TINY")-sw/2);
-
-    // Convert it to a texture (a GPU bitmap).  UNMANAGED results in the texture not being garbage 
-    // collected if all of the bubbles happen to disappear.  We'll manually dispose it later. 
-    Texture texture = canvas.toTexture(Texture.Config.UNMANAGED); // Note: toTexture disposes canvas
-      
-    // Extract the bubbles as tiles:
-    bubbleTiles.put("LARGE", texture.tile(0, 0, 2*sizes.get("LARGE"), 2*sizes.get("LARGE")));
-    bubbleTiles.put("MEDIUM", texture.tile(3*sizes.get("LARGE")-sizes.get("MEDIUM"), 
-        sizes.get("LARGE")-sizes.get("MEDIUM"), 2*sizes.get("MEDIUM"), 2*sizes.get("MEDIUM")));
-    bubbleTiles.put("SMALL", texture.tile(5*sizes.get("LARGE")-sizes.get("SMALL"), 
-        sizes.get("LARGE")-sizes.get("SMALL"), 2*sizes.get("SMALL"), 2*sizes.get("SMALL")));
-    bubbleTiles.put("TINY", texture.tile(7*sizes.get("LARGE")-sizes.get("TINY"), 
-        sizes.get("LARGE")-sizes.get("TINY"), 2*sizes.get("TINY"), 2*sizes.get("TINY")));
-
-    // Dispose the texture when this layer is disposed:
-    // Here disposeSlot() returns a Slot that dispose of texture when triggered; i.e., when this texture is disposed. 
-    onDisposed(texture.disposeSlot());
+    /** Make four bubbles of different sizes on the same Texture, once for each level of detail:*/
+    for (int level = 0; level < LodTextures.LEVELS; level++) {
+      float s = LodTextures.scale(level);
+
+      // Create a canvas (a CPU bitmap) and draw four bubbles on it (in level 0 coordinates):
+      Canvas canvas = plat.graphics().createCanvas(8*s*sizes.get("LARGE"),2*s*sizes.get("LARGE"));
+      canvas.scale(s, s);
+      canvas.setFillColor(innerColor).fillCircle(sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("LARGE")).
+        setStrokeColor(outerColor).setStrokeWidth(sw).strokeCircle(sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("LARGE")-sw/2);
+      canvas.setFillColor(innerColor).fillCircle(3*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("MEDIUM")).
+        setStrokeColor(outerColor).setStrokeWidth(sw).strokeCircle(3*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("MEDIUM")-sw/2);
+      canvas.setFillColor(innerColor).fillCircle(5*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("SMALL")).
+        setStrokeColor(outerColor).setStrokeWidth(sw).strokeCircle(5*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("SMALL")-sw/2);
+      canvas.setFillColor(innerColor).fillCircle(7*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("TINY")).
+        setStrokeColor(outerColor).setStrokeWidth(sw).strokeCircle(7*sizes.get("LARGE"), sizes.get("LARGE"), sizes.get("TINY")-sw/2);
+
+      // Convert it to a texture (a GPU bitmap).  UNMANAGED results in the texture not being garbage 
+      // collected if all of the bubbles happen to disappear (or switch to another level).  We'll 
+      // manually dispose it later. 
+      Texture texture = canvas.toTexture(Texture.Config.UNMANAGED); // Note: toTexture disposes canvas
+      textures[level] = texture;
+
+      // Extract the bubbles as tiles:
+      tile("LARGE", level, texture.tile(0, 0, 2*s*sizes.get("LARGE"), 2*s*sizes.get("LARGE")));
+      tile("MEDIUM", level, texture.tile(s*(3*sizes.get("LARGE")-sizes.get("MEDIUM")), 
+          s*(sizes.get("LARGE")-sizes.get("MEDIUM")), 2*s*sizes.get("MEDIUM"), 2*s*sizes.get("MEDIUM")));
+      tile("SMALL", level, texture.tile(s*(5*sizes.get("LARGE")-sizes.get("SMALL")), 
+          s*(sizes.get("LARGE")-sizes.get("SMALL")), 2*s*sizes.get("SMALL"), 2*s*sizes.get("SMALL")));
+      tile("TINY", level, texture.tile(s*(7*sizes.get("LARGE")-sizes.get("TINY")), 
+          s*(sizes.get("LARGE")-sizes.get("TINY")), 2*s*sizes.get("TINY"), 2*s*sizes.get("TINY")));
+
+      // Dispose the texture when this layer is disposed:
+      // Here disposeSlot() returns a Slot that dispose of texture when triggered; i.e., when this texture is disposed. 
+      onDisposed(texture.disposeSlot());
+    }
+  }
+
+  private static void tile(String size, int level, Tile tile) {
+    Tile[] tiles = bubbleTiles.get(size);
+    if (tiles == null) bubbleTiles.put(size, tiles = new Tile[LodTextures.LEVELS]);
+    tiles[level] = tile;
   }
 
   @Override public void close () {
     super.close();
-    bubbleTiles.get("LARGE").texture().close(); // We only have to close one since all tiles reference the
-  }                                             // the same texture.
+    for (Texture texture : textures) // All of a level's tiles reference the same texture.
+      texture.close();
+  }
 } 
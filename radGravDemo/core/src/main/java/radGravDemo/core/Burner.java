@@ -12,8 +12,6 @@ import org.jbox2d.collision.shapes.PolygonShape;
 import playn.scene.ImageLayer;
 import playn.core.Image;
 import playn.core.Tile;
-import playn.core.Texture;
-import playn.core.Canvas;
 import playn.core.Platform;
 import playn.scene.GroupLayer;
 import playn.core.Clock;
@@ -42,15 +40,11 @@ class Burner extends RemovableEntity {
 
   @Override
   protected ImageLayer initBurnerImage(Platform plat, GroupLayer groupLayer) {
-    Canvas canvas = plat.graphics().createCanvas(Ship.burnerWidth * RadGravDemo.scalePhysToScene, 
-                                                 Ship.burnerHeight * RadGravDemo.scalePhysToScene);
-    float sw = .5f*RadGravDemo.maxZoom;
-    canvas.setFillColor(0xFF000000).fillRect(0, 0, Ship.burnerWidth * RadGravDemo.scalePhysToScene, 
-                                                 Ship.burnerHeight * RadGravDemo.scalePhysToScene);
-    canvas.setFillColor(0xFFF8F8F8).fillRect(sw, sw, Ship.burnerWidth * RadGravDemo.scalePhysToScene-2f*sw, 
-                                                 Ship.burnerHeight * RadGravDemo.scalePhysToScene-2f*sw);
-    Texture texture = canvas.toTexture();
-    imageLayer = new ImageLayer(texture);
+    float width = Ship.burnerWidth * RadGravDemo.scalePhysToScene, height = Ship.burnerHeight * RadGravDemo.scalePhysToScene;
+    float sw = .5f * RadGravDemo.maxZoom;
+    lodTiles = LodTextures.outlinedRect(plat, width, height, sw);
+    imageLayer = new ImageLayer(lodTiles[0]);
+    imageLayer.setSize(width, height);
     imageLayer.setOrigin(ImageLayer.Origin.CENTER);
     groupLayer.addAt(imageLayer, 0f, 0f);
     Vec2 scenePosition = RadGravDemo.toSceneCoords(body.getPosition());
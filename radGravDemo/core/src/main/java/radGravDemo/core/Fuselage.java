@@ -12,8 +12,6 @@ import org.jbox2d.collision.shapes.PolygonShape;
 import playn.scene.ImageLayer;
 import playn.core.Image;
 import playn.core.Tile;
-import playn.core.Texture;
-import playn.core.Canvas;
 import playn.core.Platform;
 import playn.scene.GroupLayer;
 import playn.core.Clock;
@@ -33,15 +31,11 @@ class Fuselage extends RemovableEntity {
 
   @Override
   protected ImageLayer initFuselageImage(Platform plat, GroupLayer groupLayer) {
-    Canvas canvas = plat.graphics().createCanvas(Ship.fuselageWidth * RadGravDemo.scalePhysToScene, 
-                                                 Ship.fuselageHeight * RadGravDemo.scalePhysToScene);
+    float width = Ship.fuselageWidth * RadGravDemo.scalePhysToScene, height = Ship.fuselageHeight * RadGravDemo.scalePhysToScene;
     float sw = .5f * RadGravDemo.maxZoom;
-    canvas.setFillColor(0xFF000000).fillRect(0, 0, Ship.fuselageWidth * RadGravDemo.scalePhysToScene, 
-                                                  Ship.fuselageHeight * RadGravDemo.scalePhysToScene);
-    canvas.setFillColor(0xFFF8F8F8).fillRect(sw, sw, Ship.fuselageWidth * RadGravDemo.scalePhysToScene - 2*sw, 
-                                                  Ship.fuselageHeight * RadGravDemo.scalePhysToScene - 2*sw);
-    Texture texture = canvas.toTexture();
-    imageLayer = new ImageLayer(texture);
+    lodTiles = LodTextures.outlinedRect(plat, width, height, sw);
+    imageLayer = new ImageLayer(lodTiles[0]);
+    imageLayer.setSize(width, height);
     imageLayer.setOrigin(ImageLayer.Origin.CENTER);
     groupLayer.addAt(imageLayer, 0f, 0f);
     Vec2 scenePosition = RadGravDemo.toSceneCoords(body.getPosition());
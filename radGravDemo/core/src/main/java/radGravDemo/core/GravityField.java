@@ -0,0 +1,157 @@
+package radGravDemo.core;
+
+import org.jbox2d.common.Vec2;
+
+/**
+ * A cached gravity field for the heavy, slow moving bodies of the universe (the planets).
+ * <p>
+ * The gravitational acceleration due to the sources is sampled on a grid over the universe
+ * (which is {@link RadGravDemo#physWidth} x {@link RadGravDemo#physHeight} in physics units, or
+ * maxZoom*width x maxZoom*height in scene units).  Light bodies then look up their acceleration by
+ * bilinear interpolation, at a constant cost no matter how many planets there are.  The grid is
+ * only rebuilt when a source moves more than {@link #rebuildDistance} from where it was when the
+ * grid was last built, or when a source comes or goes.
+ * <p>
+ * The sources are handed over before each step with {@link #beginSources}, {@link #addSource} and
+ * {@link #endSources}; see {@link RadialGravity}.
+ */
+class GravityField {
+
+  // bodies at least this heavy are sources of the field
+  float minSourceMass = 50f;
+
+  // the grid is rebuilt once a source has moved this far (in physics units)
+  float rebuildDistance = .25f;
+
+  // the grid: cols x rows points, cellSize apart, starting at (originX, originY)
+  final float originX, originY, cellSize;
+  final int cols, rows;
+  private final float[] ax, ay;
+
+  // the sources as of the last build, and as handed over for the coming step
+  private float[] builtX = new float[4], builtY = new float[4], builtM = new float[4];
+  private int builtCount = -1;
+  private float[] srcX = new float[4], srcY = new float[4], srcM = new float[4];
+  private int srcCount;
+
+  // the gravity parameters of the last build
+  private float G, softening;
+
+  private int rebuilds;
+
+  /**
+   * @param width  the width of the area covered, in physics units
+   * @param height the height of the area covered, in physics units
+   * @param cols   the number of grid points across; rows are spaced the same
+   */
+  GravityField(float originX, float originY, float width, float height, int cols) {
+    this.originX = originX;
+    this.originY = originY;
+    this.cols = cols;
+    this.cellSize = width / (cols - 1);
+    this.rows = (int)Math.ceil(height / cellSize) + 1;
+    ax = new float[cols * rows];
+    ay = new float[cols * rows];
+  }
+
+  void beginSources() {
+    srcCount = 0;
+  }
+
+  void addSource(float x, float y, float mass) {
+    if (srcCount == srcX.length) {
+      srcX = grow(srcX);
+      srcY = grow(srcY);
+      srcM = grow(srcM);
+    }
+    srcX[srcCount] = x;
+    srcY[srcCount] = y;
+    srcM[srcCount] = mass;
+    srcCount++;
+  }
+
+  /** Rebuilds the grid if the sources have changed enough since the last build. */
+  void endSources(float G, float softening) {
+    if (needsRebuild(G, softening)) rebuild(G, softening);
+  }
+
+  /** Returns the number of times the grid has been built. */
+  int rebuilds() { return rebuilds; }
+
+  /**
+   * Stores the acceleration due to the sources at (x, y) into {@code accel}.  Off the grid, the
+   * sources are summed directly.
+   */
+  void sample(float x, float y, Vec2 accel) {
+    float gx = (x - originX) / cellSize, gy = (y - originY) / cellSize;
+    int col = (int)Math.floor(gx), row = (int)Math.floor(gy);
+    if (col < 0 || row < 0 || col >= cols - 1 || row >= rows - 1) {
+      accel.set(0, 0);
+      for (int s = 0; s < builtCount; s++)
+        pull(builtX[s], builtY[s], builtM[s], x, y, accel);
+      return;
+    }
+
+    float fx = gx - col, fy = gy - row;
+    int i = row * cols + col;
+    accel.x = lerp(lerp(ax[i], ax[i + 1], fx), lerp(ax[i + cols], ax[i + cols + 1], fx), fy);
+    accel.y = lerp(lerp(ay[i], ay[i + 1], fx), lerp(ay[i + cols], ay[i + cols + 1], fx), fy);
+  }
+
+  private boolean needsRebuild(float G, float softening) {
+    if (srcCount != builtCount || G != this.G || softening != this.softening) return true;
+    float limit2 = rebuildDistance * rebuildDistance;
+    for (int s = 0; s < srcCount; s++) {
+      float dx = srcX[s] - builtX[s], dy = srcY[s] - builtY[s];
+      if (dx*dx + dy*dy > limit2 || srcM[s] != builtM[s]) return true;
+    }
+    return false;
+  }
+
+  private void rebuild(float G, float softening) {
+    this.G = G;
+    this.softening = softening;
+    if (builtX.length < srcCount) {
+      builtX = new float[srcX.length];
+      builtY = new float[srcX.length];
+      builtM = new float[srcX.length];
+    }
+    System.arraycopy(srcX, 0, builtX, 0, srcCount);
+    System.arraycopy(srcY, 0, builtY, 0, srcCount);
+    System.arraycopy(srcM, 0, builtM, 0, srcCount);
+    builtCount = srcCount;
+
+    Vec2 accel = new Vec2();
+    for (int row = 0, i = 0; row < rows; row++) {
+      float y = originY + row * cellSize;
+      for (int col = 0; col < cols; col++, i++) {
+        float x = originX + col * cellSize;
+        accel.set(0, 0);
+        for (int s = 0; s < builtCount; s++)
+          pull(builtX[s], builtY[s], builtM[s], x, y, accel);
+        ax[i] = accel.x;
+        ay[i] = accel.y;
+      }
+    }
+    rebuilds++;
+  }
+
+  // adds the acceleration at (x, y) towards a mass at (sx, sy)
+  private void pull(float sx, float sy, float mass, float x, float y, Vec2 accel) {
+    float dx = sx - x, dy = sy - y;
+    float r2 = dx*dx + dy*dy + softening * softening;
+    float s = G * mass / (r2 * (float)Math.sqrt(r2));
+    accel.x += s * dx;
+    accel.y += s * dy;
+  }
+
+  private static float lerp(float a, float b, float t) {
+    return a + (b - a) * t;
+  }
+
+  private static float[] grow(float[] array) {
+    float[] grown = new float[2 * array.length];
+    System.arraycopy(array, 0, grown, 0, array.length);
+    return grown;
+  }
+}
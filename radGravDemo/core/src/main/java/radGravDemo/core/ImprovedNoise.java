@@ -32,6 +32,109 @@ public final class ImprovedNoise {
              v = h<4 ? y : h==12||h==14 ? x : z;
       return ((h&1) == 0 ? u : -u) + ((h&2) == 0 ? v : -v);
    }
+
+   // FLOAT VERSIONS, FOR FILLING TEXTURES.  THE SAME NOISE AS ABOVE (TO FLOAT PRECISION) BUT
+   // WITH A CAST INSTEAD OF Math.floor, AND A ROW API THAT HASHES AND FADES Y AND Z ONCE PER ROW.
+
+   static int fastfloor(float x) { int i = (int)x; return x < i ? i - 1 : i; }
+
+   static public float noise(float x, float y, float z) {
+      int X = fastfloor(x), Y = fastfloor(y), Z = fastfloor(z);
+      x -= X; y -= Y; z -= Z;
+      X &= 255; Y &= 255; Z &= 255;
+      float u = fade(x), v = fade(y), w = fade(z);
+      int A = p[X  ]+Y, AA = p[A]+Z, AB = p[A+1]+Z,
+          B = p[X+1]+Y, BA = p[B]+Z, BB = p[B+1]+Z;
+
+      return lerp(w, lerp(v, lerp(u, grad(p[AA  ], x  , y  , z   ),
+                                     grad(p[BA  ], x-1, y  , z   )),
+                             lerp(u, grad(p[AB  ], x  , y-1, z   ),
+                                     grad(p[BB  ], x-1, y-1, z   ))),
+                     lerp(v, lerp(u, grad(p[AA+1], x  , y  , z-1 ),
+                                     grad(p[BA+1], x-1, y  , z-1 )),
+                             lerp(u, grad(p[AB+1], x  , y-1, z-1 ),
+                                     grad(p[BB+1], x-1, y-1, z-1 ))));
+   }
+
+   /** FILLS out[0..count) WITH noise(x0 + i*dx, y, z).  ALONG A ROW Y AND Z ARE FIXED, SO WITHIN
+    *  A UNIT CELL THE NOISE IS lerp(fade(x), L0(x), L1(x)) WITH L0, L1 LINEAR IN x (THE BLENDED
+    *  GRADIENTS OF THE CELL'S LEFT AND RIGHT FACES).  THOSE ARE WORKED OUT ONCE PER CELL, AND THEN
+    *  THE CELL'S RUN OF SAMPLES IS FILLED BY A LOOP WITH NO FLOORS, LOOKUPS OR BRANCHES, WHICH THE
+    *  JIT CAN VECTORIZE. */
+   static public void noiseRow(float[] out, int count, float x0, float dx, float y, float z) {
+      int Y = fastfloor(y), Z = fastfloor(z);
+      y -= Y; z -= Z;
+      Y &= 255; Z &= 255;
+      float v = fade(y), w = fade(z);
+      // WEIGHTS OF THE FOUR (Y,Z) CORNERS OF A FACE
+      float w00 = (1-v)*(1-w), w10 = v*(1-w), w01 = (1-v)*w, w11 = v*w;
+      int i = 0;
+      while (i < count) {
+         int X = fastfloor(x0 + i*dx);
+         int A = p[X & 255]+Y, AA = p[A]+Z, AB = p[A+1]+Z,
+             B = p[(X & 255)+1]+Y, BA = p[B]+Z, BB = p[B+1]+Z;
+         // LEFT FACE: grad(h, x, ...) = slope*x + grad(h, 0, ...)
+         float s0 = w00*slope(p[AA], y, z) + w10*slope(p[AB], y-1, z) +
+                    w01*slope(p[AA+1], y, z-1) + w11*slope(p[AB+1], y-1, z-1);
+         float c0 = w00*grad(p[AA], 0f, y, z) + w10*grad(p[AB], 0f, y-1, z) +
+                    w01*grad(p[AA+1], 0f, y, z-1) + w11*grad(p[AB+1], 0f, y-1, z-1);
+         // RIGHT FACE: grad(h, x-1, ...) = slope*x + grad(h, 0, ...) - slope
+         float s1 = w00*slope(p[BA], y, z) + w10*slope(p[BB], y-1, z) +
+                    w01*slope(p[BA+1], y, z-1) + w11*slope(p[BB+1], y-1, z-1);
+         float c1 = w00*grad(p[BA], 0f, y, z) + w10*grad(p[BB], 0f, y-1, z) +
+                    w01*grad(p[BA+1], 0f, y, z-1) + w11*grad(p[BB+1], 0f, y-1, z-1) - s1;
+
+         // THE SAMPLES IN THIS CELL.  (ROUNDING MAY PUT ONE ON THE WRONG SIDE OF THE BOUNDARY,
+         // WHICH IS HARMLESS: THE CELL'S POLYNOMIAL MEETS THE NEXT ONE'S SMOOTHLY THERE.)
+         int end = dx > 0 ? (int)Math.ceil((X + 1 - x0) / dx) :
+                   dx < 0 ? (int)Math.floor((X - x0) / dx) + 1 : count;
+         end = Math.max(i + 1, Math.min(count, end));
+         for (int j = i; j < end; j++) {
+            float x = (x0 + j*dx) - X;
+            float left = s0*x + c0, right = s1*x + c1;
+            out[j] = left + x * x * x * (x * (x * 6 - 15) + 10) * (right - left);
+         }
+         i = end;
+      }
+   }
+
+   /** FRACTAL (fBm) NOISE: octaves OF noise, EACH lacunarity TIMES THE FREQUENCY AND gain TIMES
+    *  THE AMPLITUDE OF THE LAST. */
+   static public float fbm(float x, float y, float z, int octaves, float lacunarity, float gain) {
+      float sum = 0, amplitude = 1;
+      for (int o = 0; o < octaves; o++) {
+         sum += amplitude * noise(x, y, z);
+         x *= lacunarity; y *= lacunarity; z *= lacunarity;
+         amplitude *= gain;
+      }
+      return sum;
+   }
+
+   /** FILLS out[0..count) WITH fbm(x0 + i*dx, y, z, ...), A ROW AT A TIME PER OCTAVE. scratch
+    *  MUST HOLD AT LEAST count FLOATS. */
+   static public void fbmRow(float[] out, float[] scratch, int count, float x0, float dx, float y,
+                             float z, int octaves, float lacunarity, float gain) {
+      for (int i = 0; i < count; i++) out[i] = 0;
+      float amplitude = 1;
+      for (int o = 0; o < octaves; o++) {
+         noiseRow(scratch, count, x0, dx, y, z);
+         for (int i = 0; i < count; i++) out[i] += amplitude * scratch[i];
+         x0 *= lacunarity; dx *= lacunarity; y *= lacunarity; z *= lacunarity;
+         amplitude *= gain;
+      }
+   }
+
+   // THE COEFFICIENT OF x IN grad(hash, x, y, z)
+   static float slope(int hash, float y, float z) { return grad(hash, 1f, y, z) - grad(hash, 0f, y, z); }
+   static float fade(float t) { return t * t * t * (t * (t * 6 - 15) + 10); }
+   static float lerp(float t, float a, float b) { return a + t * (b - a); }
+   static float grad(int hash, float x, float y, float z) {
+      int h = hash & 15;
+      float u = h<8 ? x : y,
+            v = h<4 ? y : h==12||h==14 ? x : z;
+      return ((h&1) == 0 ? u : -u) + ((h&2) == 0 ? v : -v);
+   }
+
    static final int p[] = new int[512], permutation[] = { 151,160,137,91,90,15,
    131,13,201,95,96,53,194,233,7,225,140,36,103,30,69,142,8,99,37,240,21,10,23,
    190, 6,148,247,120,234,75,0,26,197,62,94,252,219,203,117,35,11,32,57,177,33,
@@ -0,0 +1,155 @@
+package radGravDemo.core;
+
+/**
+ * Previous and current transforms (x, y and angle) of a set of objects, for interpolating
+ * between updates when painting.
+ *
+ * Each object gets a slot (see {@link #add}).  Every update, call {@link #snapshot} once (which
+ * makes the current transforms the previous ones) and then {@link #set} the new transforms.
+ * When painting, {@link #lerpInto} interpolates all of them at once, or {@link #x}, {@link #y}
+ * and {@link #angle} interpolate one.  The transforms are kept in packed arrays, and none of
+ * this allocates (except when the arrays grow).
+ *
+ * Angles are interpolated the short way around, so an angle that wraps from just under PI to
+ * just over -PI does not spin the long way for a frame.
+ */
+public class InterpolationBuffer {
+
+  private static final float PI = (float)Math.PI, TWO_PI = 2*PI;
+
+  private float[] prevX, prevY, prevAngle, currX, currY, currAngle;
+
+  // the slots in use are below size; free slots below size are chained through next
+  private int[] next;
+  private int size, free = -1;
+
+  public InterpolationBuffer() {
+    this(16);
+  }
+
+  public InterpolationBuffer(int capacity) {
+    prevX = new float[capacity];
+    prevY = new float[capacity];
+    prevAngle = new float[capacity];
+    currX = new float[capacity];
+    currY = new float[capacity];
+    currAngle = new float[capacity];
+    next = new int[capacity];
+  }
+
+  /** Adds an object at the given transform (with nothing to interpolate yet) and returns its slot. */
+  public int add(float x, float y, float angle) {
+    int slot;
+    if (free >= 0) {
+      slot = free;
+      free = next[slot];
+    }
+    else {
+      if (size == currX.length) grow();
+      slot = size++;
+    }
+    prevX[slot] = currX[slot] = x;
+    prevY[slot] = currY[slot] = y;
+    prevAngle[slot] = currAngle[slot] = angle;
+    return slot;
+  }
+
+  /** Frees a slot, for reuse by a later {@link #add}. */
+  public void remove(int slot) {
+    next[slot] = free;
+    free = slot;
+  }
+
+  /**
+   * The number of slots that {@link #lerpInto} fills.  Slots are reused, so this is the most
+   * objects there have been at once.
+   */
+  public int size() {
+    return size;
+  }
+
+  /** Makes the current transforms the previous ones.  Call once per update, before {@link #set}. */
+  public void snapshot() {
+    System.arraycopy(currX, 0, prevX, 0, size);
+    System.arraycopy(currY, 0, prevY, 0, size);
+    System.arraycopy(currAngle, 0, prevAngle, 0, size);
+  }
+
+  /** Sets the current transform of an object. */
+  public void set(int slot, float x, float y, float angle) {
+    currX[slot] = x;
+    currY[slot] = y;
+    currAngle[slot] = angle;
+  }
+
+  /** Sets the current position of an object, leaving its angle alone. */
+  public void set(int slot, float x, float y) {
+    currX[slot] = x;
+    currY[slot] = y;
+  }
+
+  /** Returns the current x (as of the last update) of an object. */
+  public float x(int slot) { return currX[slot]; }
+
+  /** Returns the current y (as of the last update) of an object. */
+  public float y(int slot) { return currY[slot]; }
+
+  /** Returns the current angle (as of the last update) of an object. */
+  public float angle(int slot) { return currAngle[slot]; }
+
+  /** Returns the x of an object alpha of the way from the previous update to the last one. */
+  public float x(int slot, float alpha) {
+    return prevX[slot] + (currX[slot] - prevX[slot]) * alpha;
+  }
+
+  /** Returns the y of an object alpha of the way from the previous update to the last one. */
+  public float y(int slot, float alpha) {
+    return prevY[slot] + (currY[slot] - prevY[slot]) * alpha;
+  }
+
+  /** Returns the angle of an object alpha of the way from the previous update to the last one. */
+  public float angle(int slot, float alpha) {
+    return lerpAngle(prevAngle[slot], currAngle[slot], alpha);
+  }
+
+  /**
+   * Interpolates every slot alpha of the way from the previous update to the last one, into
+   * the given arrays (which must hold at least {@link #size} values).  Any of the arrays may be
+   * null, to skip it.
+   */
+  public void lerpInto(float alpha, float[] x, float[] y, float[] angle) {
+    if (x != null)
+      for (int i = 0; i < size; i++) x[i] = prevX[i] + (currX[i] - prevX[i]) * alpha;
+    if (y != null)
+      for (int i = 0; i < size; i++) y[i] = prevY[i] + (currY[i] - prevY[i]) * alpha;
+    if (angle != null)
+      for (int i = 0; i < size; i++) angle[i] = lerpAngle(prevAngle[i], currAngle[i], alpha);
+  }
+
+  /** Interpolates alpha of the way from one angle to another, the short way around. */
+  public static float lerpAngle(float from, float to, float alpha) {
+    float delta = to - from;
+    // wrap delta into [-PI, PI)
+    delta -= TWO_PI * (float)Math.floor((delta + PI) / TWO_PI);
+    return from + delta * alpha;
+  }
+
+  private void grow() {
+    int capacity = 2 * currX.length;
+    prevX = grow(prevX, capacity);
+    prevY = grow(prevY, capacity);
+    prevAngle = grow(prevAngle, capacity);
+    currX = grow(currX, capacity);
+    currY = grow(currY, capacity);
+    currAngle = grow(currAngle, capacity);
+    int[] newNext = new int[capacity];
+    System.arraycopy(next, 0, newNext, 0, size);
+    next = newNext;
+  }
+
+  private static float[] grow(float[] array, int capacity) {
+    float[] grown = new float[capacity];
+    System.arraycopy(array, 0, grown, 0, array.length);
+    return grown;
+  }
+}
@@ -0,0 +1,67 @@
+package radGravDemo.core;
+
+import playn.core.Platform;
+import playn.core.Canvas;
+import playn.core.Texture;
+import playn.core.Tile;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Level of detail textures class
+ * <p>
+ * Everything in the universe is drawn at maxZoom resolution, but when we are zoomed out the
+ * universe layer is scaled down and most of those texels are wasted.  So each image also comes
+ * in {@link #LEVELS} levels: level 0 is full resolution, and each level after that is half the
+ * resolution of the one before.  {@link RadGravDemo#lodLevel} is the level that fits the current
+ * zoom, and {@link MovingEntity} shows that level of its entity's image.
+ * <p>
+ * The textures are UNMANAGED, since layers switch between them (a managed texture would be
+ * disposed as soon as no layer showed it).
+ */
+class LodTextures {
+
+  // the number of levels
+  static final int LEVELS = 3;
+
+  // the ship's rectangles, by size
+  private static final Map<String, Tile[]> rects = new HashMap<String, Tile[]>();
+
+  /** Returns the resolution of a level relative to level 0. */
+  static float scale(int level) {
+    return 1f / (1 << level);
+  }
+
+  /**
+   * Returns the coarsest level that still has (at least) a texel per pixel when the universe is at
+   * zoom.
+   */
+  static int levelFor(float zoom) {
+    int level = 0;
+    while (level < LEVELS-1 && zoom/RadGravDemo.maxZoom <= scale(level+1)) level++;
+    return level;
+  }
+
+  /**
+   * Returns the levels of a rectangle with a black border of the given stroke width, as the
+   * fuselage and burners are drawn.  The sizes are in scene units.
+   */
+  static Tile[] outlinedRect(Platform plat, float width, float height, float sw) {
+    String key = width + "x" + height + ":" + sw;
+    Tile[] tiles = rects.get(key);
+    if (tiles == null) {
+      tiles = new Tile[LEVELS];
+      for (int level = 0; level < LEVELS; level++) {
+        float s = scale(level);
+        Canvas canvas = plat.graphics().createCanvas(width * s, height * s);
+        canvas.scale(s, s);
+        canvas.setFillColor(0xFF000000).fillRect(0, 0, width, height);
+        canvas.setFillColor(0xFFF8F8F8).fillRect(sw, sw, width - 2*sw, height - 2*sw);
+        tiles[level] = canvas.toTexture(Texture.Config.UNMANAGED);
+      }
+      rects.put(key, tiles);
+    }
+    return tiles;
+  }
+}
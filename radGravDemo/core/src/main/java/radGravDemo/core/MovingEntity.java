@@ -4,6 +4,7 @@ import org.jbox2d.dynamics.Body;
 import org.jbox2d.common.Vec2;
 import org.jbox2d.dynamics.World;
 
+import playn.core.Tile;
 import playn.scene.ImageLayer;
 import playn.scene.GroupLayer;
 import playn.core.Platform;
@@ -25,8 +26,19 @@ abstract class MovingEntity {
   protected ImageLayer imageLayer;
   protected Body body;
 
-  // for interpolating the time difference between updating and painting
-  private float prevX, prevY, prevAngle;  
+  // For interpolating the time difference between updating and painting: the bodies' transforms
+  // (scene position and rotation) as published by the last two updates, shared by all entities.
+  // We paint from these rather than from the body, since the body may be mid-step on the physics
+  // thread (see PhysicsStepper). RadGravDemo calls transforms.snapshot() once per update.
+  static final InterpolationBuffer transforms = new InterpolationBuffer(64);
+
+  // this entity's slot in transforms (-1 if it has no body)
+  private int slot = -1;
+
+  // If not null, the levels of detail of this entity's image (see LodTextures), any of which may
+  // still be null if it is not ready yet.  The image layer must have its size set, in scene units.
+  protected Tile[] lodTiles;
+  private int lodShown = -1;
 
   // constructor for ship and viewport
   MovingEntity() {}
@@ -35,10 +47,12 @@ abstract class MovingEntity {
   MovingEntity(Platform plat, GroupLayer groupLayer, World world, Vec2 position, Vec2 offset) {
     if (this instanceof Fuselage) { 
       body = initFuselagePhysics(world, position, offset);
+      _initTransform();
       imageLayer = initFuselageImage(plat, groupLayer);
     }
     else {
       body = initBurnerPhysics(world, position, offset);
+      _initTransform();
       imageLayer = initBurnerImage(plat, groupLayer);
     }
   }
@@ -46,15 +60,30 @@ abstract class MovingEntity {
   // constructor for planets 
   MovingEntity(Platform plat, GroupLayer groupLayer, World world, Vec2 position, float radius) {
     body = initPlanetPhysics(world, position, radius);
+    _initTransform(); // before the image, which may call update()
     imageLayer = initPlanetImage(plat, groupLayer, position, radius);
   }
 
   // constructor for bubbles
   MovingEntity(World world, GroupLayer groupLayer, String size, Vec2 position, Vec2 impulse) {
     body = initBubblePhysics(world, size, position, impulse);
+    _initTransform(); // before the image, which may call update()
     imageLayer = initBubbleImage(groupLayer, size);
   }
 
+  // start out with nothing to interpolate: previous and current transforms are the initial one
+  private void _initTransform() {
+    Vec2 scenePosition = RadGravDemo.toSceneCoords(body.getPosition());
+    slot = transforms.add(scenePosition.x, scenePosition.y, -body.getAngle());
+  }
+
+  // give up the slot in transforms, once the entity has been removed
+  protected void _removeTransform() {
+    if (slot < 0) return;
+    transforms.remove(slot);
+    slot = -1;
+  }
+
   protected Body initBubblePhysics(World world, String size, Vec2 position, Vec2 impulse) {return body;}
   protected ImageLayer initBubbleImage(GroupLayer groupLayer, String size) {return imageLayer;}
 
@@ -68,28 +97,50 @@ abstract class MovingEntity {
   protected Body initBurnerPhysics(World world, Vec2 position, Vec2 offset) {return body;}
   protected ImageLayer initBurnerImage(Platform plat, GroupLayer groupLayer) { return imageLayer; }
 
+  // Publish the body's current position. Only call this while the world is not being stepped.
   protected void _updatePosition () {
     Vec2 scenePosition = RadGravDemo.toSceneCoords(body.getPosition());
-    prevX = scenePosition.x;
-    prevY = scenePosition.y;
+    transforms.set(slot, scenePosition.x, scenePosition.y);
   };
 
   protected void _updateRotation() {
-    prevAngle = -body.getAngle();
+    transforms.set(slot, transforms.x(slot), transforms.y(slot), -body.getAngle());
   }
 
   protected abstract void update();
  
   protected void _paintPosition(Clock clock) {
-    Vec2 scenePosition = RadGravDemo.toSceneCoords(body.getPosition());
-    imageLayer.setTranslation(scenePosition.x * clock.alpha + prevX * (1f - clock.alpha),
-                              scenePosition.y * clock.alpha + prevY * (1f - clock.alpha));
+    imageLayer.setTranslation(paintX(clock.alpha), paintY(clock.alpha));
+    _paintLod();
+  }
+
+  // show the level of detail that suits the current zoom, or else the nearest one that is ready
+  // (preferring finer ones)
+  protected void _paintLod() {
+    if (lodTiles == null) return;
+    int wanted = Math.min(RadGravDemo.lodLevel, lodTiles.length-1), level = wanted;
+    while (level >= 0 && lodTiles[level] == null) level--;
+    if (level < 0) {
+      level = wanted;
+      while (level < lodTiles.length && lodTiles[level] == null) level++;
+      if (level == lodTiles.length) return;
+    }
+    if (level != lodShown) {
+      imageLayer.setTile(lodTiles[level]);
+      lodShown = level;
+    }
   }
 
+  // the rotation is interpolated the short way around, so the ship turning through PI doesn't
+  // spin all the way back for a frame
   protected void _paintRotation(Clock clock) {
-    imageLayer.setRotation(-body.getAngle() * clock.alpha + prevAngle * (1f - clock.alpha));
+    imageLayer.setRotation(transforms.angle(slot, clock.alpha));
   }
 
+  // the interpolated scene coordinates of the body, alpha of the way from the previous update
+  protected float paintX(float alpha) { return transforms.x(slot, alpha); }
+  protected float paintY(float alpha) { return transforms.y(slot, alpha); }
+
   protected abstract void paint(Clock clock);
 
 }
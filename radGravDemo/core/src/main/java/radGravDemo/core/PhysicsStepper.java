@@ -0,0 +1,155 @@
+package radGravDemo.core;
+
+import org.jbox2d.dynamics.World;
+
+import playn.core.Platform;
+
+import react.Signal;
+
+/**
+ * Fixed timestep stepper for a JBox2D world.
+ * <p>
+ * JBox2D is happiest when it is always stepped by the same amount of time.  Rather than
+ * handing the elapsed time of each update straight to {@link World#step}, we add it to an
+ * accumulator and then step the world in fixed increments of {@link #stepSize} for as long
+ * as the accumulator holds at least one step's worth of time.  Any remainder carries over
+ * to the next update.
+ * <p>
+ * After a very slow frame the accumulator can hold many steps.  Taking all of them would make
+ * that update even slower (and so on), so at most {@link #maxSteps} are taken per update and
+ * the rest of the backlog is dropped.
+ * <p>
+ * On platforms that support it (the Java backend) the stepper can also run asynchronously, see
+ * {@link #setAsync}. Then {@link #advance} only starts the steps on a background thread and
+ * returns, so that physics runs while the game thread paints.  In that mode the world must not
+ * be touched (not even read) on the game thread except between a call to {@link #sync} and the
+ * next call to {@link #advance}.  Entities therefore publish their body transforms right after
+ * {@link #sync} and paint from those.
+ * <p>
+ * Anything that applies forces for a step (such as {@link RadialGravity}) connects to
+ * {@link #beforeStep}, which is emitted before every single step.  When async, it is emitted on
+ * the background thread.
+ */
+class PhysicsStepper {
+
+  final World world;
+  private final Platform plat;
+
+  // the fixed amount of (physics) time, in seconds, of one call to world.step
+  float stepSize;
+
+  // the maximum number of steps taken in one update before the backlog gets dropped
+  int maxSteps = 4;
+
+  // the iteration counts passed to world.step
+  int velocityIterations = 10;
+  int positionIterations = 10;
+
+  // emitted with the world just before each call to world.step (JBox2D clears forces after each)
+  final Signal<World> beforeStep = Signal.create();
+
+  // physics time that has elapsed but not yet been simulated
+  private float accumulator;
+
+  // stats for the last update
+  private int steps;
+  private double stepMillis;
+
+  // if not null, steps run on a background thread, and the game thread waits for them with this
+  private StepLatch latch;
+  private volatile Throwable failure;
+  private float pendingSeconds;
+  private final Runnable backgroundStep = new Runnable() {
+    @Override public void run() {
+      try {
+        step(pendingSeconds);
+      } catch (Throwable t) {
+        failure = t;
+      } finally {
+        latch.release();
+      }
+    }
+  };
+
+  /**
+   * @param stepSize  the fixed step size in physics seconds
+   */
+  PhysicsStepper(Platform plat, World world, float stepSize) {
+    this.plat = plat;
+    this.world = world;
+    this.stepSize = stepSize;
+  }
+
+  /**
+   * Requests that the world be stepped on a background thread, waiting for the steps with the
+   * given latch (or, if it is null, that it be stepped on the calling thread).  This is ignored
+   * (and the world is stepped on the calling thread) if the platform does not support async
+   * execution.
+   */
+  void setAsync(StepLatch latch) {
+    sync();
+    this.latch = (latch != null && plat.exec().isAsyncSupported()) ? latch : null;
+  }
+
+  /** Returns true if the world is being stepped on a background thread. */
+  boolean isAsync() { return latch != null; }
+
+  /**
+   * Waits for the steps started by the last call to {@link #advance} to finish.  Once this
+   * returns, the world may be read and modified until the next call to {@link #advance}. This is
+   * a no-op unless the stepper is async.
+   */
+  void sync() {
+    // the steps had all of the last frame to run, so there is rarely anything to wait for
+    if (latch != null) latch.await();
+    if (failure != null) {
+      Throwable cause = failure;
+      failure = null;
+      throw new RuntimeException("Physics step failed", cause);
+    }
+  }
+
+  /**
+   * Adds elapsed physics time to the accumulator and steps the world as many times as that
+   * (and {@link #maxSteps}) allow.  If the stepper is async, the steps are started on a
+   * background thread and this returns immediately.
+   *
+   * @param seconds  the physics time that has elapsed since the last call
+   * @return         the number of times the world was stepped (by the previous call, if async)
+   */
+  int advance(float seconds) {
+    if (latch == null) return step(seconds);
+    sync();
+    pendingSeconds = seconds;
+    latch.arm();
+    plat.exec().invokeAsync(backgroundStep);
+    return steps;
+  }
+
+  private int step(float seconds) {
+    accumulator += seconds;
+    int count = 0;
+    double start = plat.time();
+    while (accumulator >= stepSize && count < maxSteps) {
+      beforeStep.emit(world);
+      world.step(stepSize, velocityIterations, positionIterations);
+      accumulator -= stepSize;
+      count++;
+    }
+    // we fell too far behind; drop the backlog but keep the fractional remainder
+    if (accumulator >= stepSize) accumulator %= stepSize;
+    stepMillis = plat.time() - start;
+    steps = count;
+    return count;
+  }
+
+  /** Returns the number of steps taken during the last update. */
+  int steps() { return steps; }
+
+  /** Returns the wall clock time, in milliseconds, spent in world.step during the last update. */
+  double stepMillis() { return stepMillis; }
+
+  @Override public String toString() {
+    return "physics: " + steps + " steps/update, " + ((int)(stepMillis * 100) / 100.0) + " ms in step";
+  }
+}
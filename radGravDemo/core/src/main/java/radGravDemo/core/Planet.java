@@ -10,12 +10,14 @@ import org.jbox2d.collision.shapes.CircleShape;
 
 import playn.core.Surface;
 import playn.core.Platform;
-import playn.core.Canvas;
 import playn.core.Texture;
+import playn.core.Tile;
 import playn.core.Clock;
 import playn.scene.GroupLayer;
 import playn.scene.ImageLayer;
 
+import react.Slot;
+
 /**
  * Planet class
  *
@@ -30,43 +32,20 @@ public class Planet extends RemovableEntity {
   }
 
   protected ImageLayer initPlanetImage(Platform plat, GroupLayer groupLayer, Vec2 position, float radius) { 
-    // initialize an imageLayer
+    // initialize an imageLayer, showing a placeholder until the (cached) texture is ready
     float sceneRadius = RadGravDemo.scalePhysToScene * radius;
-    Canvas canvas = plat.graphics().createCanvas(2*sceneRadius, 2*sceneRadius);
-    //canvas.setFillColor(0xFF000000).fillCircle(sceneRadius, sceneRadius, sceneRadius);
-    int n = 360;
-    int m = 128;
-
-    Vec2 [] radialVecs = new Vec2 [n];
-    int [] colors = new int [m]; 
-
-    // generates m equally spaced greys from black to white
-    for (int k=0; k<m; k++) {
-      colors[k] = 0xFF000000 + k * (256*256+256+1)*256/m;
-      //System.out.println("color"+k+" "+Integer.toHexString(colors[k]));
+    final ImageLayer imageLayer = new ImageLayer(PlanetTextures.placeholder(plat));
+    imageLayer.setSize(2*sceneRadius, 2*sceneRadius);
+    // the levels of detail get shown (by _paintLod) as they become ready; coarsest (fastest) first
+    lodTiles = new Tile[LodTextures.LEVELS];
+    for (int level = LodTextures.LEVELS-1; level >= 0; level--) {
+      final int l = level;
+      PlanetTextures.get(plat, radius, 0, PlanetTextures.Style.RINGS, level).onSuccess(new Slot<Texture>() {
+        @Override public void onEmit (Texture texture) {
+          lodTiles[l] = texture;
+        }
+      });
     }
-
-    for (int k=0; k<m; k++) { 
-      float [] perlin1D = new float [n]; 
-      for (int i=0;i<n;i++) { 
-        //perlin1D[i] = .9f*(1-k/(float)m)+(float)perlinNoise.noise((double)i/(7f-.015*k),2.3+.05*k,3.4)/5;
-       // perlin1D[i] = .9f*(1-k/(float)m)+(float)perlinNoise.noise((double)i/(30f-.07*k),2.3+.025*k,1.6)/5;
-        perlin1D[i] = .9f*(1-k/(float)m)+(float)ImprovedNoise.noise((double)i/30,2.3+.025*k,3.9/(30f-.07*k))/(8+.25f*k);
-      }
-      canvas.setStrokeColor(colors[k/4]).setStrokeWidth((.5f-.003f*k)*RadGravDemo.maxZoom);
-      radialVecs[0] = (new Vec2(sceneRadius,sceneRadius)).add(new Vec2(sceneRadius*perlin1D[0], 0));
-      double dTheta = 2f*Math.PI/n;
-      for (int i=0; i<n-1; i++) { 
-        radialVecs[i+1] = (new Vec2(sceneRadius,sceneRadius))
-          .add(new Vec2(sceneRadius*perlin1D[i+1]*(float)Math.cos((i+1)*dTheta), 
-                        sceneRadius*perlin1D[i+1]*(float)Math.sin((i+1)*dTheta)));
-        canvas.drawLine(radialVecs[i].x, radialVecs[i].y, radialVecs[i+1].x, radialVecs[i+1].y); 
-      }
-      canvas.drawLine(radialVecs[n-1].x, radialVecs[n-1].y, radialVecs[0].x, radialVecs[0].y); 
-    }
-
-    Texture texture = canvas.toTexture();
-    ImageLayer imageLayer = new ImageLayer(texture);
     imageLayer.setOrigin(ImageLayer.Origin.CENTER); 
     groupLayer.addCenterAt(imageLayer, 0f, 0f);
 
@@ -0,0 +1,116 @@
+package radGravDemo.core;
+
+import java.util.Arrays;
+
+/**
+ * Planet rasterizer class
+ * <p>
+ * Computes a planet's rings of noise straight into an ARGB pixel buffer, rather than stroking
+ * tens of thousands of line segments through the platform's Canvas (which is slow on HTML5 and
+ * Android).  It only does arithmetic, so it can run on any thread, and it comes out the same on
+ * every backend.
+ * <p>
+ * For RINGS, each ring k is a closed curve R_k(theta), drawn in order so that later (inner,
+ * lighter) rings cover earlier ones.  Rather than stroking the curves, we first build, for each
+ * of a few thousand angles, a radial profile of which ring is on top at each distance from the
+ * center.  Then every pixel just looks up its polar (r, theta) in those profiles.
+ */
+class PlanetRasterizer {
+
+  // the number of rings
+  static final int RINGS = 128;
+
+  /**
+   * Returns the (row major, size x size) ARGB pixels of a planet.
+   *
+   * @param size   the width and height of the image in pixels
+   * @param unit   the number of pixels per scene unit
+   */
+  static int[] rasterize(int size, float unit, int seed, PlanetTextures.Style style) {
+    float radius = size/2f;
+    // the number of noise samples around each ring
+    int n = (style == PlanetTextures.Style.RINGS) ? 360 : 3*360;
+    int [] colors = new int [RINGS];
+
+    // generates equally spaced greys from black to white
+    for (int k=0; k<RINGS; k++) {
+      colors[k] = 0xFF000000 + k * (256*256+256+1)*256/RINGS;
+    }
+
+    // the radius of each ring, in pixels, at each of its n samples
+    float [][] rings = new float [RINGS][n];
+    for (int k=0; k<RINGS; k++) {
+      // the seed moves us to a different part of the noise
+      ImprovedNoise.noiseRow(rings[k], n, 0, 1/30f, 2.3f+.025f*k+7.1f*seed, 3.9f/(30f-.07f*k));
+      for (int i=0; i<n; i++) {
+        rings[k][i] = radius * (.9f*(1-k/(float)RINGS)+rings[k][i]/(8+.25f*k));
+      }
+    }
+
+    int[] pixels = new int[size*size];
+    if (style == PlanetTextures.Style.RINGS) fillRings(pixels, size, unit, rings, colors);
+    else fillSpeckles(pixels, size, unit, rings, colors);
+    return pixels;
+  }
+
+  private static void fillRings(int[] pixels, int size, float unit, float[][] rings, int[] colors) {
+    float center = size/2f;
+    int n = rings[0].length;
+
+    // enough angles that neighbouring ones are about a pixel apart at the rim
+    int angles = 256;
+    while (angles < 2*Math.PI*center) angles *= 2;
+    int depth = (int)Math.ceil(center*Math.sqrt(2)) + 1;
+
+    // top[a*depth + r] is the index of the ring on top at angle a, distance r (or -1)
+    byte[] top = new byte[angles*depth];
+    Arrays.fill(top, (byte)-1);
+    for (int k=0; k<RINGS; k++) {
+      float halfWidth = Math.max(.5f, (.5f-.003f*k)*RadGravDemo.maxZoom*unit/2);
+      float[] ring = rings[k];
+      for (int a=0; a<angles; a++) {
+        // the ring is a polygon through its samples; interpolate along the edge
+        float t = a * n / (float)angles;
+        int i = (int)t;
+        float f = t - i;
+        float r = ring[i]*(1-f) + ring[(i+1) % n]*f;
+        int lo = Math.max(0, (int)(r - halfWidth)), hi = Math.min(depth-1, (int)(r + halfWidth));
+        for (int d=lo, row=a*depth; d<=hi; d++) top[row + d] = (byte)k;
+      }
+    }
+
+    float anglesPerRadian = (float)(angles/(2*Math.PI));
+    for (int y=0, p=0; y<size; y++) {
+      float dy = y + .5f - center;
+      for (int x=0; x<size; x++, p++) {
+        float dx = x + .5f - center;
+        int d = (int)Math.sqrt(dx*dx + dy*dy);
+        if (d >= depth) continue;
+        float theta = (float)Math.atan2(dy, dx);
+        if (theta < 0) theta += 2*Math.PI;
+        int a = (int)(theta * anglesPerRadian) & (angles-1);
+        int k = top[a*depth + d];
+        if (k >= 0) pixels[p] = colors[k/4];
+      }
+    }
+  }
+
+  private static void fillSpeckles(int[] pixels, int size, float unit, float[][] rings, int[] colors) {
+    float center = size/2f;
+    int n = rings[0].length;
+    double dTheta = 2*Math.PI/n;
+    for (int k=0; k<RINGS; k++) {
+      // a small square at each sample, with its corner on the ring
+      float side = (1f-.003f*k)*RadGravDemo.maxZoom*unit;
+      int color = colors[k/4];
+      for (int i=0; i<n; i++) {
+        float x = center + rings[k][i]*(float)Math.cos(i*dTheta);
+        float y = center + rings[k][i]*(float)Math.sin(i*dTheta);
+        int x0 = Math.max(0, Math.round(x)), x1 = Math.min(size, Math.round(x + side));
+        int y0 = Math.max(0, Math.round(y)), y1 = Math.min(size, Math.round(y + side));
+        for (int py=y0; py<y1; py++)
+          for (int px=x0, p=py*size+x0; px<x1; px++, p++) pixels[p] = color;
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package radGravDemo.core;
+
+import playn.core.Platform;
+import playn.core.Canvas;
+import playn.core.Scale;
+import playn.core.Texture;
+
+import react.RFuture;
+import react.RPromise;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Planet textures class
+ * <p>
+ * A planet's image is made of 128 rings of Perlin noise (see {@link PlanetRasterizer}), which
+ * takes a while to compute.  So the textures are cached by (radius, seed, style) and reused, by
+ * every planet that looks the same and across restarts.  They are UNMANAGED, so they survive their image layers being disposed.
+ * <p>
+ * Where the platform supports it, the pixels are computed on a background thread, and the
+ * texture is delivered (on the game thread) by the returned future.  Until then a planet shows the
+ * {@link #placeholder}.
+ * <p>
+ * Each planet comes in {@link LodTextures#LEVELS} levels of detail, and each level is generated
+ * (and cached) separately.
+ */
+class PlanetTextures {
+
+  /** How the rings are drawn: as lines (Planet) or as many small squares (Planet2). */
+  enum Style { RINGS, SPECKLES }
+
+  private static final Map<String, RFuture<Texture>> cache = new HashMap<String, RFuture<Texture>>();
+  private static Texture placeholder;
+
+  /**
+   * Returns the texture for a planet of the given radius (in physics units), at the given level
+   * of detail, generating it if it is not in the cache.  At level 0 the texture is
+   * 2*radius*scalePhysToScene square.
+   */
+  static RFuture<Texture> get(Platform plat, float radius, int seed, Style style, int level) {
+    String key = radius + ":" + seed + ":" + style + ":" + level;
+    RFuture<Texture> texture = cache.get(key);
+    if (texture == null) {
+      float levelScale = LodTextures.scale(level);
+      texture = generate(plat, RadGravDemo.scalePhysToScene * radius * levelScale, levelScale, seed, style);
+      cache.put(key, texture);
+    }
+    return texture;
+  }
+
+  /** Returns a plain disk to show (scaled) until a planet's texture is ready. */
+  static Texture placeholder(Platform plat) {
+    if (placeholder == null) {
+      Canvas canvas = plat.graphics().createCanvas(64, 64);
+      canvas.setFillColor(0xFF404040).fillCircle(32, 32, .88f*32);
+      placeholder = canvas.toTexture(Texture.Config.UNMANAGED);
+    }
+    return placeholder;
+  }
+
+  private static RFuture<Texture> generate(final Platform plat, final float sceneRadius,
+                                           float levelScale, final int seed, final Style style) {
+    // the pixel size of a canvas 2*sceneRadius square
+    Scale scale = plat.graphics().scale();
+    final int size = scale.scaledCeil(2*sceneRadius);
+    // the pixels per scene unit at this level, so that the strokes shrink with it, as the radius does
+    final float unit = scale.factor * levelScale;
+
+    if (!plat.exec().isAsyncSupported())
+      return RFuture.success(upload(plat, sceneRadius, size, PlanetRasterizer.rasterize(size, unit, seed, style)));
+
+    // rasterize on a background thread, but upload the texture on the game thread
+    final RPromise<Texture> result = RPromise.create();
+    plat.exec().invokeAsync(new Runnable() {
+      @Override public void run() {
+        try {
+          final int[] pixels = PlanetRasterizer.rasterize(size, unit, seed, style);
+          plat.exec().invokeLater(new Runnable() {
+            @Override public void run() {
+              result.succeed(upload(plat, sceneRadius, size, pixels));
+            }
+          });
+        } catch (final Throwable t) {
+          plat.exec().invokeLater(new Runnable() {
+            @Override public void run() {
+              result.fail(t);
+            }
+          });
+        }
+      }
+    });
+    return result;
+  }
+
+  private static Texture upload(Platform plat, float sceneRadius, int size, int[] pixels) {
+    Canvas canvas = plat.graphics().createCanvas(2*sceneRadius, 2*sceneRadius);
+    int width = Math.min(size, canvas.image.pixelWidth()), height = Math.min(size, canvas.image.pixelHeight());
+    canvas.image.setRgb(0, 0, width, height, pixels, 0, size);
+    return canvas.toTexture(Texture.Config.UNMANAGED);
+  }
+}
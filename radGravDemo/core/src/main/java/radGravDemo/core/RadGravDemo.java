@@ -65,6 +65,16 @@ public class RadGravDemo extends SceneGame {
   // Jbox2D physics world
   final World world;
 
+  // steps the world in fixed increments, no matter how long an update took
+  final PhysicsStepper stepper;
+
+  // mutual gravity between the planets, the ship and its exhaust, applied before each step
+  final RadialGravity radialGravity = new RadialGravity();
+
+  // Set this to true to log how many physics steps each update takes and how long they take.
+  private boolean logPhysicsStats = false;
+  private int statsCount;
+
   // IMPORTANT: So that we can keep the integrity of the graphics when we zoom in, all obects are
   // created on a scale maxZoom times width x height.  The dimensions of this very large layer
   // are referred to below as 'scene' dimensions.  (But to remember to think in physics world scale.)  
@@ -75,6 +85,9 @@ public class RadGravDemo extends SceneGame {
   // current zoom factor 
   static float zoom = 5f;
 
+  // the level of detail of the textures that suits the current zoom (see LodTextures)
+  static int lodLevel = 0;
+
   // multiply by this to convert from physical dimensions to (large) scene dimensions
   static float scalePhysToScene; 
 
@@ -102,9 +115,16 @@ public class RadGravDemo extends SceneGame {
   //protected Value<Vec2> viewPosition = new Value.create(null);
   //protected Value<Vec2> zoom = new Value.create(null);
 
-  private float prevX, prevY;
+  public RadGravDemo (Platform plat) {
+    this(plat, null);
+  }
 
-  public RadGravDemo (final Platform plat) {
+  /**
+   * @param stepLatch  if not null, step the physics on a background thread while painting (if the
+   *                   platform supports it), waiting for the steps with this (see
+   *                   PhysicsStepper.setAsync)
+   */
+  public RadGravDemo (final Platform plat, StepLatch stepLatch) {
     super(plat, 33); // update our "simulation" 33ms (30 times per second)
 
     final IDimension screenSize = plat.graphics().viewSize;
@@ -123,6 +143,17 @@ public class RadGravDemo extends SceneGame {
     Vec2 gravity = new Vec2(0f, 0f); // no JBox2D gravity
     world = new World(gravity);
 
+    // Each 33ms update advances the world by 33/500 physics seconds (twice real time).
+    stepper = new PhysicsStepper(plat, world, 33/500f);
+    stepper.setAsync(stepLatch);
+    // the planets' pull on the exhaust bubbles comes from a cached grid (set this to null to sum it)
+    radialGravity.field = new GravityField(0, 0, physWidth, physHeight, 161);
+    stepper.beforeStep.connect(new Slot<World>() {
+      @Override public void onEmit (World world) {
+        radialGravity.apply(world);
+      }
+    });
+
     final GroupLayer universeLayer = new GroupLayer(maxZoom * width, maxZoom * height); 
     
     // add a planet
@@ -217,6 +248,7 @@ public class RadGravDemo extends SceneGame {
         }
         else {
           rootLayer.remove(gameOverLayer);
+          stepper.sync();
           for (RemovableEntity entity : universeObjects) 
             entity.remove();
           universeObjects.clear();
@@ -248,14 +280,18 @@ public class RadGravDemo extends SceneGame {
 
     update.connect(new Slot<Clock>() {
       @Override public void onEmit (Clock clock) {
-        world.step(clock.dt/500f, 10,10);
+        // wait for the last steps (if they are running in the background), publish the
+        // results to the entities, and then start the next steps
+        stepper.sync();
+        MovingEntity.transforms.snapshot();
         for (MovingEntity entity : universeObjects) 
           entity.update();
+        stepper.advance(clock.dt/500f);
+        if (logPhysicsStats && ++statsCount % 30 == 0) 
+          plat.log().info(stepper + ", gravity: " + radialGravity.bodyCount() + " bodies");
 
         universeLayer.setScale(zoom/maxZoom);
-        Vec2 scenePosition = toSceneCoords(ship.fuselage.body.getPosition());
-        prevX = scenePosition.x;
-        prevY = scenePosition.y;
+        lodLevel = LodTextures.levelFor(zoom);
       }
     });
 
@@ -269,9 +305,7 @@ public class RadGravDemo extends SceneGame {
         for (MovingEntity entity : universeObjects) 
           entity.paint(clock);
 
-        Vec2 scenePosition = toSceneCoords(ship.fuselage.body.getPosition());
-        universeLayer.setOrigin(scenePosition.x * clock.alpha + prevX * (1f - clock.alpha),
-                                scenePosition.y * clock.alpha + prevY * (1f - clock.alpha));
+        universeLayer.setOrigin(ship.fuselage.paintX(clock.alpha), ship.fuselage.paintY(clock.alpha));
       }
     });
   }
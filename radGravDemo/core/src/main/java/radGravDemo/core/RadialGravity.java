@@ -0,0 +1,292 @@
+package radGravDemo.core;
+
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.World;
+
+/**
+ * Mutual (Newtonian) gravity between all of the dynamic bodies of a JBox2D world.
+ * <p>
+ * The world's own gravity is zero; instead {@link #apply} is called before each step and pushes
+ * every body towards every other one with a force of G m1 m2 / r^2.  To keep close encounters
+ * from blowing up, r^2 is softened to r^2 + {@link #softening}^2.
+ * <p>
+ * With only a few bodies the forces are summed pairwise.  Once there are more than
+ * {@link #bruteForceLimit} bodies (hundreds of exhaust bubbles, say), a Barnes-Hut quadtree is
+ * built instead: a cell that looks small from a body (its width over its distance is less than
+ * {@link #theta}) is treated as a single mass at its center of mass.  That is O(N log N) rather
+ * than O(N^2) per step.
+ * <p>
+ * Optionally, a {@link GravityField} caches the pull of the planets on a grid.  Bodies lighter
+ * than {@link #lightMass} (the exhaust bubbles) then only feel that field, at a constant cost
+ * each, and (being so light) do not pull on anything themselves.
+ */
+class RadialGravity {
+
+  // the gravitational constant, in physics units.  A planet of radius 5 pulls with about 2
+  // physics units/s^2 at its surface.
+  float G = .1f;
+
+  // added (squared) to the squared distance between bodies, so that the force stays finite
+  float softening = .1f;
+
+  // the Barnes-Hut opening angle; 0 is exact (and slow), larger is faster but rougher
+  float theta = .5f;
+
+  // up to this many bodies the forces are summed pairwise
+  int bruteForceLimit = 64;
+
+  // if not null, bodies lighter than lightMass only feel this (cached) field of the heavy bodies
+  GravityField field;
+  float lightMass = .001f;
+
+  // cells are not split below this depth (bodies sitting on top of each other end up together)
+  private static final int MAX_DEPTH = 24;
+
+  // the bodies for this step, with their centers of mass, masses, and accumulated accelerations
+  private Body[] bodies = new Body[64];
+  private float[] x = new float[64], y = new float[64], m = new float[64];
+  private float[] ax = new float[64], ay = new float[64];
+  private int count;
+
+  // the light bodies, when there is a field
+  private Body[] lightBodies = new Body[64];
+  private float[] lightX = new float[64], lightY = new float[64];
+  private int lightCount;
+
+  // The quadtree, as parallel arrays indexed by node.  A node is either a leaf holding one body
+  // (nodeBody >= 0, or an aggregate if it is at MAX_DEPTH), or an internal node with up to four
+  // children (nodeBody == INTERNAL).  Nodes are reused from step to step.
+  private static final int EMPTY = -1, INTERNAL = -2;
+  private int[] nodeChild = new int[4*64];
+  private int[] nodeBody = new int[64];
+  private float[] nodeCx = new float[64], nodeCy = new float[64], nodeHalf = new float[64];
+  private float[] nodeMass = new float[64], nodeMx = new float[64], nodeMy = new float[64];
+  private int nodeCount;
+
+  private final Vec2 force = new Vec2(), accel = new Vec2();
+
+  /** Applies the mutual gravity of all of the world's dynamic bodies, as forces, for the next step. */
+  void apply(World world) {
+    gather(world);
+
+    if (field != null) {
+      for (int i = 0; i < lightCount; i++) {
+        Body body = lightBodies[i];
+        field.sample(lightX[i], lightY[i], accel);
+        force.set(body.getMass() * accel.x, body.getMass() * accel.y);
+        body.applyForceToCenter(force);
+      }
+    }
+
+    if (count < 2) return;
+    for (int i = 0; i < count; i++) {
+      ax[i] = 0;
+      ay[i] = 0;
+    }
+    if (count <= bruteForceLimit) {
+      sumPairwise();
+    }
+    else {
+      buildTree();
+      for (int i = 0; i < count; i++)
+        sumTree(0, i);
+    }
+
+    for (int i = 0; i < count; i++) {
+      force.set(m[i] * ax[i], m[i] * ay[i]);
+      bodies[i].applyForceToCenter(force);
+    }
+  }
+
+  /** Returns the number of bodies that felt gravity during the last step. */
+  int bodyCount() { return count + lightCount; }
+
+  private void gather(World world) {
+    count = 0;
+    lightCount = 0;
+    if (field != null) field.beginSources();
+    for (Body body = world.getBodyList(); body != null; body = body.getNext()) {
+      float mass = body.getMass();
+      if (body.getType() != BodyType.DYNAMIC || mass <= 0) continue;
+      Vec2 center = body.getWorldCenter();
+      if (field != null && mass < lightMass) {
+        if (lightCount == lightBodies.length) growLightBodies();
+        lightBodies[lightCount] = body;
+        lightX[lightCount] = center.x;
+        lightY[lightCount] = center.y;
+        lightCount++;
+        continue;
+      }
+      if (count == bodies.length) growBodies();
+      bodies[count] = body;
+      x[count] = center.x;
+      y[count] = center.y;
+      m[count] = mass;
+      count++;
+      if (field != null && mass >= field.minSourceMass) field.addSource(center.x, center.y, mass);
+    }
+    if (field != null) field.endSources(G, softening);
+  }
+
+  private void sumPairwise() {
+    float eps2 = softening * softening;
+    for (int i = 0; i < count; i++) {
+      for (int j = i + 1; j < count; j++) {
+        float dx = x[j] - x[i], dy = y[j] - y[i];
+        float r2 = dx*dx + dy*dy + eps2;
+        float s = G / (r2 * (float)Math.sqrt(r2));
+        // the pull of j on i, and (equal and opposite) of i on j
+        ax[i] += s * m[j] * dx;
+        ay[i] += s * m[j] * dy;
+        ax[j] -= s * m[i] * dx;
+        ay[j] -= s * m[i] * dy;
+      }
+    }
+  }
+
+  private void buildTree() {
+    // the root is the bounding square of all of the bodies
+    float minX = x[0], maxX = x[0], minY = y[0], maxY = y[0];
+    for (int i = 1; i < count; i++) {
+      minX = Math.min(minX, x[i]);
+      maxX = Math.max(maxX, x[i]);
+      minY = Math.min(minY, y[i]);
+      maxY = Math.max(maxY, y[i]);
+    }
+    nodeCount = 0;
+    newNode((minX + maxX) / 2, (minY + maxY) / 2, Math.max(maxX - minX, maxY - minY) / 2 + 1e-3f);
+    for (int i = 0; i < count; i++)
+      insert(0, i, 0);
+  }
+
+  private void insert(int node, int i, int depth) {
+    nodeMass[node] += m[i];
+    nodeMx[node] += m[i] * x[i];
+    nodeMy[node] += m[i] * y[i];
+
+    int held = nodeBody[node];
+    if (held == EMPTY) {
+      nodeBody[node] = i;
+    }
+    else if (held == INTERNAL) {
+      insertIntoChild(node, i, depth);
+    }
+    else if (depth < MAX_DEPTH) {
+      // split the leaf, and push the body it held down a level
+      nodeBody[node] = INTERNAL;
+      insertIntoChild(node, held, depth);
+      insertIntoChild(node, i, depth);
+    }
+    // else: too deep to split, the leaf just aggregates the mass
+  }
+
+  private void insertIntoChild(int node, int i, int depth) {
+    int quadrant = (x[i] >= nodeCx[node] ? 1 : 0) + (y[i] >= nodeCy[node] ? 2 : 0);
+    int child = nodeChild[4*node + quadrant];
+    if (child == EMPTY) {
+      float half = nodeHalf[node] / 2;
+      child = newNode(nodeCx[node] + ((quadrant & 1) == 0 ? -half : half),
+                      nodeCy[node] + ((quadrant & 2) == 0 ? -half : half), half);
+      nodeChild[4*node + quadrant] = child;
+    }
+    insert(child, i, depth + 1);
+  }
+
+  private void sumTree(int node, int i) {
+    int held = nodeBody[node];
+    if (held == INTERNAL) {
+      float dx = nodeMx[node] / nodeMass[node] - x[i], dy = nodeMy[node] / nodeMass[node] - y[i];
+      float half = nodeHalf[node];
+      boolean inside = Math.abs(x[i] - nodeCx[node]) <= half && Math.abs(y[i] - nodeCy[node]) <= half;
+      if (!inside && 4 * half * half < theta * theta * (dx*dx + dy*dy)) {
+        pull(i, nodeMass[node], dx, dy);
+      }
+      else {
+        // too close to treat as one mass (or it contains the body itself), so open the cell up
+        for (int q = 0; q < 4; q++) {
+          int child = nodeChild[4*node + q];
+          if (child != EMPTY) sumTree(child, i);
+        }
+      }
+      return;
+    }
+
+    float mass = nodeMass[node], mx = nodeMx[node], my = nodeMy[node];
+    if (held == i) {
+      // a body does not pull on itself (but a leaf at MAX_DEPTH may hold others too)
+      mass -= m[i];
+      mx -= m[i] * x[i];
+      my -= m[i] * y[i];
+      if (mass <= 0) return;
+    }
+    pull(i, mass, mx / mass - x[i], my / mass - y[i]);
+  }
+
+  // accelerates body i towards a mass at offset (dx, dy) from it
+  private void pull(int i, float mass, float dx, float dy) {
+    float r2 = dx*dx + dy*dy + softening * softening;
+    float s = G * mass / (r2 * (float)Math.sqrt(r2));
+    ax[i] += s * dx;
+    ay[i] += s * dy;
+  }
+
+  private int newNode(float cx, float cy, float half) {
+    if (nodeCount == nodeBody.length) growNodes();
+    int node = nodeCount++;
+    nodeCx[node] = cx;
+    nodeCy[node] = cy;
+    nodeHalf[node] = half;
+    nodeMass[node] = 0;
+    nodeMx[node] = 0;
+    nodeMy[node] = 0;
+    nodeBody[node] = EMPTY;
+    for (int q = 0; q < 4; q++)
+      nodeChild[4*node + q] = EMPTY;
+    return node;
+  }
+
+  private void growBodies() {
+    int size = 2 * bodies.length;
+    Body[] newBodies = new Body[size];
+    System.arraycopy(bodies, 0, newBodies, 0, count);
+    bodies = newBodies;
+    x = grow(x, size);
+    y = grow(y, size);
+    m = grow(m, size);
+    ax = grow(ax, size);
+    ay = grow(ay, size);
+  }
+
+  private void growLightBodies() {
+    int size = 2 * lightBodies.length;
+    Body[] newBodies = new Body[size];
+    System.arraycopy(lightBodies, 0, newBodies, 0, lightCount);
+    lightBodies = newBodies;
+    lightX = grow(lightX, size);
+    lightY = grow(lightY, size);
+  }
+
+  private void growNodes() {
+    int size = 2 * nodeBody.length;
+    int[] newChild = new int[4*size];
+    System.arraycopy(nodeChild, 0, newChild, 0, nodeChild.length);
+    nodeChild = newChild;
+    int[] newBody = new int[size];
+    System.arraycopy(nodeBody, 0, newBody, 0, nodeBody.length);
+    nodeBody = newBody;
+    nodeCx = grow(nodeCx, size);
+    nodeCy = grow(nodeCy, size);
+    nodeHalf = grow(nodeHalf, size);
+    nodeMass = grow(nodeMass, size);
+    nodeMx = grow(nodeMx, size);
+    nodeMy = grow(nodeMy, size);
+  }
+
+  private static float[] grow(float[] array, int size) {
+    float[] grown = new float[size];
+    System.arraycopy(array, 0, grown, 0, array.length);
+    return grown;
+  }
+}
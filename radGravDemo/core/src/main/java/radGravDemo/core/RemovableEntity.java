@@ -50,5 +50,6 @@ abstract class RemovableEntity extends MovingEntity {
   protected void remove() {
     world.destroyBody(this.body);
     this.imageLayer.close();
+    _removeTransform();
   }
 }
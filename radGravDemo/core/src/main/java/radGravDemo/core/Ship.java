@@ -34,6 +34,10 @@ class Ship extends RemovableEntity {
   private boolean thrustRight, thrustLeft; 
   private boolean thrust = false;
 
+  // exhaust bubbles requested by key events since the last update. The bubbles (and their bodies)
+  // are created in update(), since the world may be being stepped while key events are dispatched.
+  private int pendingLeftBubbles, pendingRightBubbles;
+
   // for the fuel (bubbles) for the ship
   private static BubbleTextures bubbleLayer;
   private static final List<Bubble> bubbleList = new ArrayList<>(); 
@@ -114,23 +118,29 @@ class Ship extends RemovableEntity {
             default: break;
           }
         }
-        if (thrustLeft && fuelGauge.leftFuelLevel.get() > 0) {
-          bubbleList.add(new Bubble(bubbleLayer, world, "TINY", leftBurner.burnerPos(.5f),
-              //new Vec2(-.01f*(float)Math.sin(leftBurner.body.getAngle()), .01f*(float)Math.cos(leftBurner.body.getAngle()))));
-              new Vec2(-.001f*(float)Math.sin(leftBurner.body.getAngle()), .001f*(float)Math.cos(leftBurner.body.getAngle()))));
-          fuelGauge.burnFuel.updateForce("LEFT");
-        }
-        if (thrustRight && fuelGauge.rightFuelLevel.get() > 0) {
-          bubbleList.add(new Bubble(bubbleLayer, world, "TINY", rightBurner.burnerPos(.5f),
-              //new Vec2(-.01f*(float)Math.sin(rightBurner.body.getAngle()), .01f*(float)Math.cos(rightBurner.body.getAngle()))));
-              new Vec2(-.001f*(float)Math.sin(rightBurner.body.getAngle()), .001f*(float)Math.cos(rightBurner.body.getAngle()))));
-          fuelGauge.burnFuel.updateForce("RIGHT");
-        }
+        if (thrustLeft) pendingLeftBubbles++;
+        if (thrustRight) pendingRightBubbles++;
       }
     });
   }
 
   @Override protected void update() {
+    for (; pendingLeftBubbles > 0; pendingLeftBubbles--) {
+      if (fuelGauge.leftFuelLevel.get() > 0) {
+        bubbleList.add(new Bubble(bubbleLayer, world, "TINY", leftBurner.burnerPos(.5f),
+            //new Vec2(-.01f*(float)Math.sin(leftBurner.body.getAngle()), .01f*(float)Math.cos(leftBurner.body.getAngle()))));
+            new Vec2(-.001f*(float)Math.sin(leftBurner.body.getAngle()), .001f*(float)Math.cos(leftBurner.body.getAngle()))));
+        fuelGauge.burnFuel.updateForce("LEFT");
+      }
+    }
+    for (; pendingRightBubbles > 0; pendingRightBubbles--) {
+      if (fuelGauge.rightFuelLevel.get() > 0) {
+        bubbleList.add(new Bubble(bubbleLayer, world, "TINY", rightBurner.burnerPos(.5f),
+            //new Vec2(-.01f*(float)Math.sin(rightBurner.body.getAngle()), .01f*(float)Math.cos(rightBurner.body.getAngle()))));
+            new Vec2(-.001f*(float)Math.sin(rightBurner.body.getAngle()), .001f*(float)Math.cos(rightBurner.body.getAngle()))));
+        fuelGauge.burnFuel.updateForce("RIGHT");
+      }
+    }
     fuselage.update();
     leftBurner.update();
     rightBurner.update();
@@ -0,0 +1,60 @@
+package radGravDemo.core;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the row versions of the noise functions match the scalar ones.
+ */
+public class ImprovedNoiseTest {
+
+  static final float EPSILON = 1e-6f;
+
+  // rows that start inside a cell, cross many cells, run backwards, and sit on integer planes
+  static final float[][] ROWS = {
+    // x0, dx, y, z
+    { 0.3f, 0.01f, 1.7f, 2.2f },
+    { -13.1f, 0.37f, -4.5f, 0.9f },
+    { 250.6f, 0.05f, 7.25f, -3.75f },  // crosses the 256 wrap of the permutation
+    { 8.9f, -0.13f, 0.1f, 11.6f },
+    { 2f, 0.25f, 3f, -1f },            // lands exactly on cell boundaries
+    { 5.5f, 0f, 2.5f, 0.5f },
+  };
+
+  @Test public void testNoiseRow () {
+    int count = 200;
+    float[] out = new float[count];
+    for (float[] row : ROWS) {
+      ImprovedNoise.noiseRow(out, count, row[0], row[1], row[2], row[3]);
+      for (int i = 0; i < count; i++) {
+        float x = row[0] + i*row[1];
+        assertEquals("noise(" + x + ", " + row[2] + ", " + row[3] + ")",
+                     ImprovedNoise.noise(x, row[2], row[3]), out[i], EPSILON);
+      }
+    }
+  }
+
+  @Test public void testFbmRow () {
+    int count = 200, octaves = 5;
+    float lacunarity = 2f, gain = .5f;
+    float[] out = new float[count], scratch = new float[count];
+    for (float[] row : ROWS) {
+      ImprovedNoise.fbmRow(out, scratch, count, row[0], row[1], row[2], row[3],
+                           octaves, lacunarity, gain);
+      for (int i = 0; i < count; i++) {
+        float x = row[0] + i*row[1];
+        assertEquals("fbm(" + x + ", " + row[2] + ", " + row[3] + ")",
+                     ImprovedNoise.fbm(x, row[2], row[3], octaves, lacunarity, gain), out[i],
+                     EPSILON);
+      }
+    }
+  }
+
+  @Test public void testPartialRow () {
+    // only the first count samples are written
+    float[] out = new float[10];
+    java.util.Arrays.fill(out, 42f);
+    ImprovedNoise.noiseRow(out, 6, 0.5f, 0.3f, 1.5f, 2.5f);
+    for (int i = 6; i < out.length; i++) assertEquals(42f, out[i], 0f);
+  }
+}
@@ -12,7 +12,8 @@ public class RadGravDemoJava {
     config.width = 800;
     config.height = 700;
     LWJGLPlatform plat = new LWJGLPlatform(config);
-    new RadGravDemo(plat);
+    // step the physics on a background thread, overlapping with painting
+    new RadGravDemo(plat, new CountDownStepLatch());
     plat.setTitle("Radial Gravity Demo");
     plat.start();
   }
@@ -22,10 +22,17 @@ public class Fabric {
 
   static final Value<Float> accY = Value.create(.143f); 
 
+  // The positions of all the point masses as of the last two updates, for painting in between.
+  // (x and lastX are no good for that: they are the next and current steps of the integration,
+  // and the constraints move x around after the fact.)
+  static final InterpolationBuffer positions = new InterpolationBuffer(1024);
+
   public final class PointMass {
 
     float x, y, lastX, lastY, velX, initialX, initialY;
     boolean stationary;
+    // this point mass's slot in positions
+    final int slot;
 
     public PointMass(float posX, float posY, boolean stationary) {
       if (stationary) stationaryPointMasses.add(this);
@@ -37,6 +44,7 @@ public class Fabric {
       this.stationary = stationary;
       lastX = this.x;
       lastY = this.y;
+      slot = positions.add(x, y, 0);
       //accX = 0;
       //accY = .143f;  This is now reactive
     }
@@ -175,6 +183,7 @@ public class Fabric {
   }
 
   void update() {
+    positions.snapshot();
     for (int i=0; i<3; i++ ) {
       for (int k=0; k<numLinks; k++) {
         links[k].constrain();
@@ -186,6 +195,10 @@ public class Fabric {
     }
     for (PointMass point : movingPointMasses) {
       point.update();
+      positions.set(point.slot, point.x, point.y);
+    }
+    for (PointMass point : stationaryPointMasses) {
+      positions.set(point.slot, point.x, point.y);
     }
   }
 }
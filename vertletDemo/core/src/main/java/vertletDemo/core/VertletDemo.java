@@ -90,12 +90,12 @@ public class VertletDemo extends SceneGame {
       });
     }
       
-    // paint a line of bubbles, properly interpolating
-    void paint(Clock clock) {
-      float Ax = link.A.lastX * clock.alpha + link.A.x * (1 - clock.alpha);
-      float Ay = link.A.lastY * clock.alpha + link.A.y * (1 - clock.alpha);
-      float Bx = link.B.lastX * clock.alpha + link.B.x * (1 - clock.alpha);
-      float By = link.B.lastY * clock.alpha + link.B.y * (1 - clock.alpha);
+    // paint a line of bubbles, given the interpolated positions of the point masses (by slot)
+    void paint(float[] xs, float[] ys) {
+      float Ax = xs[link.A.slot];
+      float Ay = ys[link.A.slot];
+      float Bx = xs[link.B.slot];
+      float By = ys[link.B.slot];
       float stepX = (Bx-Ax)/num;
       float stepY = (By-Ay)/num;
       for (int i=0 ; i<num; i++) {
@@ -170,9 +170,18 @@ public class VertletDemo extends SceneGame {
     */
   
     paint.connect(new Slot<Clock>() {
+      // the interpolated positions of the point masses, reused from frame to frame
+      private float[] xs = new float[0], ys = new float[0];
+
       @Override public void onEmit (Clock clock) {
+        // tearing adds point masses, so make room for them
+        if (xs.length < Fabric.positions.size()) {
+          xs = new float[2*Fabric.positions.size()];
+          ys = new float[xs.length];
+        }
+        Fabric.positions.lerpInto(clock.alpha, xs, ys, null);
         for (int k=0; k<Fabric.numLinks; k++)
-          linkToLines.get(Fabric.links[k]).paint(clock);
+          linkToLines.get(Fabric.links[k]).paint(xs, ys);
       }
     });
   }